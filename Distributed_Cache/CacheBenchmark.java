@@ -0,0 +1,199 @@
+package Distributed_Cache;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Regression baseline for DistributedCache: a 90% get / 10% put mix over
+ * every combination of thread count (1, 4, 16), key distribution (uniform,
+ * Zipf(0.99), cyclic scan), eviction strategy and distribution strategy.
+ * Each cell gets a fresh cache, a warm-up round and a measured round, and
+ * prints ops/s, allocation (MB/s and bytes per op, summed over the worker
+ * threads) and the node hit ratio of the measured round. The scan loops over
+ * twice the capacity, so one thread gets almost no hits under LRU; several
+ * threads scan from different points and hit each other's loads.
+ *
+ * Usage: CacheBenchmark [roundMillis], default 500.
+ */
+public class CacheBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int NODES = 4;
+    // 10% of the keyspace fits
+    private static final int NODE_CAPACITY = KEYS / 10 / NODES;
+    private static final int TRACE_LENGTH = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        long roundMillis = args.length > 0 ? Long.parseLong(args[0]) : 500;
+
+        String[] keys = new String[KEYS];
+        Database<String, String> db = new Database<>();
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key-" + i;
+            db.put(keys[i], "value-" + i);
+        }
+
+        Map<String, int[]> traces = new LinkedHashMap<>();
+        traces.put("uniform", uniformTrace());
+        traces.put("zipf", zipfTrace(0.99));
+        traces.put("scan", scanTrace());
+
+        Map<String, IntFunction<CacheNode<String, String>>> evictions = new LinkedHashMap<>();
+        evictions.put("LRU", cap -> new LocalCacheNode<>(cap, new EvictionByLRU<>()));
+        evictions.put("LinkedLRU", cap -> new LocalCacheNode<>(cap, new EvictionByLinkedLRU<>()));
+        evictions.put("TinyLFU", cap -> new LocalCacheNode<>(cap, new EvictionByTinyLFU<>(cap)));
+
+        Map<String, Supplier<DistributionStrategy<String>>> distributions = new LinkedHashMap<>();
+        distributions.put("modulo", ModuloDistribution::new);
+        distributions.put("consistent", ConsistentHashDistribution::new);
+
+        // one unprinted pass over every strategy, so the first printed cells are not interpreted code
+        for (IntFunction<CacheNode<String, String>> eviction : evictions.values()) {
+            for (Supplier<DistributionStrategy<String>> distribution : distributions.values()) {
+                run(build(db, eviction, distribution.get()), keys, traces.get("zipf"), 1, roundMillis);
+            }
+        }
+
+        System.out.printf("%-7s %-8s %-10s %-10s %12s %9s %7s %6s%n",
+                "threads", "keys", "eviction", "nodes", "ops/s", "MB/s", "B/op", "hit");
+        for (int threads : new int[]{1, 4, 16}) {
+            for (Map.Entry<String, int[]> trace : traces.entrySet()) {
+                for (Map.Entry<String, IntFunction<CacheNode<String, String>>> eviction : evictions.entrySet()) {
+                    for (Map.Entry<String, Supplier<DistributionStrategy<String>>> distribution : distributions.entrySet()) {
+                        DistributedCache<String, String> cache =
+                                build(db, eviction.getValue(), distribution.getValue().get());
+                        run(cache, keys, trace.getValue(), threads, roundMillis);
+                        Result result = run(cache, keys, trace.getValue(), threads, roundMillis);
+                        System.out.printf("%-7d %-8s %-10s %-10s %,12.0f %9.1f %7.1f %6.3f%n",
+                                threads, trace.getKey(), eviction.getKey(), distribution.getKey(),
+                                result.opsPerSecond(), result.allocatedMegabytesPerSecond(),
+                                result.bytesPerOp(), result.hitRatio());
+                    }
+                }
+            }
+        }
+    }
+
+    private static DistributedCache<String, String> build(Database<String, String> db,
+                                                         IntFunction<CacheNode<String, String>> segmentFactory,
+                                                         DistributionStrategy<String> strategy) {
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new ConcurrentCacheNode<>(NODE_CAPACITY, 16, segmentFactory));
+        }
+        return new DistributedCache.Builder<>(nodes, strategy, db).recordStats().build();
+    }
+
+    private static Result run(DistributedCache<String, String> cache, String[] keys, int[] trace,
+                              int threads, long roundMillis) throws Exception {
+        CacheStatsSnapshot before = cache.snapshot();
+        AtomicLong ops = new AtomicLong();
+        AtomicLong allocated = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long[] deadline = new long[1];
+        for (int t = 0; t < threads; t++) {
+            int offset = t * (trace.length / threads);
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long bytesBefore = allocatedBytes();
+                long done = 0;
+                int i = offset;
+                while (System.nanoTime() < deadline[0]) {
+                    for (int j = 0; j < 1_000; j++) {
+                        String key = keys[trace[i]];
+                        // every tenth request is a write
+                        if (i % 10 == 0) {
+                            cache.put(key, key);
+                        } else {
+                            cache.get(key);
+                        }
+                        i = (i + 1) & (trace.length - 1);
+                    }
+                    done += 1_000;
+                }
+                allocated.addAndGet(allocatedBytes() - bytesBefore);
+                ops.addAndGet(done);
+            });
+        }
+
+        long began = System.nanoTime();
+        deadline[0] = began + roundMillis * 1_000_000;
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        CacheStatsSnapshot after = cache.snapshot();
+        long hits = after.getHitCount() - before.getHitCount();
+        long misses = after.getMissCount() - before.getMissCount();
+        return new Result(ops.get(), allocated.get(), seconds, hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private static int[] uniformTrace() {
+        Random random = new Random(1);
+        int[] trace = new int[TRACE_LENGTH];
+        for (int i = 0; i < trace.length; i++) trace[i] = random.nextInt(KEYS);
+        return trace;
+    }
+
+    private static int[] zipfTrace(double skew) {
+        double[] cdf = new double[KEYS];
+        double sum = 0;
+        for (int i = 0; i < KEYS; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+
+        Random random = new Random(1);
+        int[] trace = new int[TRACE_LENGTH];
+        for (int i = 0; i < trace.length; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            if (index < 0) index = -index - 1;
+            trace[i] = Math.min(index, KEYS - 1);
+        }
+        return trace;
+    }
+
+    // Twice the total capacity in order, the pattern that defeats LRU.
+    private static int[] scanTrace() {
+        int[] trace = new int[TRACE_LENGTH];
+        for (int i = 0; i < trace.length; i++) trace[i] = i % (2 * NODES * NODE_CAPACITY);
+        return trace;
+    }
+
+    private static class Result {
+        private final long ops;
+        private final long allocatedBytes;
+        private final double seconds;
+        private final double hitRatio;
+
+        Result(long ops, long allocatedBytes, double seconds, double hitRatio) {
+            this.ops = ops;
+            this.allocatedBytes = allocatedBytes;
+            this.seconds = seconds;
+            this.hitRatio = hitRatio;
+        }
+
+        double opsPerSecond() { return ops / seconds; }
+        double allocatedMegabytesPerSecond() { return allocatedBytes / seconds / (1 << 20); }
+        double bytesPerOp() { return ops == 0 ? 0 : (double) allocatedBytes / ops; }
+        double hitRatio() { return hitRatio; }
+    }
+}
@@ -0,0 +1,76 @@
+package Distributed_Cache;
+
+/**
+ * A stored value that doubles as its own node in the recency list,
+ * so entry-aware eviction strategies can reorder it without a second lookup.
+ */
+public class CacheEntry<K, V> {
+    private final K key;
+    private V value;
+    private long expiresAt;
+    private long writeTime;
+    private int weight = 1;
+
+    // links owned by the node's EntryEvictionStrategy
+    CacheEntry<K, V> prev;
+    CacheEntry<K, V> next;
+    // links owned by the node's TimerWheel, null while not scheduled
+    CacheEntry<K, V> wheelPrev;
+    CacheEntry<K, V> wheelNext;
+
+    public CacheEntry(K key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public void setValue(V value) {
+        this.value = value;
+    }
+
+    // 0 means the entry never expires
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    // clock millis of the last put, 0 if unknown
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    public void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    // Same key, value and timestamps, detached from any recency list.
+    public CacheEntry<K, V> copy() {
+        CacheEntry<K, V> copy = new CacheEntry<>(key, value);
+        copy.expiresAt = expiresAt;
+        copy.writeTime = writeTime;
+        copy.weight = weight;
+        return copy;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt != 0 && now >= expiresAt;
+    }
+}
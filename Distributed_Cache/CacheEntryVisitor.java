@@ -0,0 +1,6 @@
+package Distributed_Cache;
+
+public interface CacheEntryVisitor<K, V> {
+    // expiresAt is epoch millis, or 0 for entries that never expire
+    void visit(K key, V value, long expiresAt);
+}
@@ -2,38 +2,41 @@ package Distributed_Cache;
 
 import java.util.*;
 
-public class CacheNode {
-    private int capacity;
-    private Map<String, String> map;
-    private EvictionStrategy evictionStrategy;
-
-    public CacheNode(int capacity, EvictionStrategy evictionStrategy) {
-        this.capacity = capacity;
-        this.map = new HashMap<>();
-        this.evictionStrategy = evictionStrategy;
+public interface CacheNode<K, V> {
+    // Stable name that places the node on a hash ring, the same in every process that uses it.
+    // null means none; ConsistentHashDistribution then numbers the node in the order it first sees it.
+    default String id() {
+        return null;
     }
-
-    public String get(String key) {
-        if (!map.containsKey(key)) return null;
-
-        evictionStrategy.onGet(key);
-        return map.get(key);
+    V get(K key);
+    // Like get, but also returns the entry's timestamps (as a detached copy); null on a miss.
+    default CacheEntry<K, V> getEntry(K key) {
+        V value = get(key);
+        return value == null ? null : new CacheEntry<>(key, value);
     }
-
-    public void put(String key, String value) {
-
-        if (map.containsKey(key)) {
-            map.put(key, value);
-            evictionStrategy.onPut(key);
-            return;
-        }
-
-        if (map.size() >= capacity) {
-            String evictKey = evictionStrategy.evict();
-            map.remove(evictKey);
+    // Like get, but records no hit or miss and leaves recency alone, for internal re-checks.
+    default V peek(K key) {
+        return get(key);
+    }
+    // hits only; missing or expired keys are left out of the result
+    default Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> result = new HashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) result.put(key, value);
         }
-
-        map.put(key, value);
-        evictionStrategy.onPut(key);
+        return result;
     }
-}
\ No newline at end of file
+    void put(K key, V value);
+    // ttlMillis <= 0 means the entry never expires
+    void put(K key, V value, long ttlMillis);
+    void remove(K key);
+    // reclaims expired entries that nobody has read since they expired
+    void cleanUp();
+    int size();
+    // Visits live entries from least to most recently used where the node tracks recency.
+    void forEachEntry(CacheEntryVisitor<K, V> visitor);
+    // hit/miss/eviction counters; StatsCounter.DISABLED until stats are switched on
+    StatsCounter stats();
+    void setStatsCounter(StatsCounter stats);
+}
@@ -0,0 +1,127 @@
+package Distributed_Cache;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+
+/**
+ * Wire format shared by CacheServer and RemoteCacheNode. Every message is a
+ * frame: [int length][int requestId][byte code][payload], where length counts
+ * everything after itself. Requests carry an opcode, responses a status, and a
+ * response reuses its request's id, so a client can keep many requests in
+ * flight on one connection. Keys and values are [int byteLength][bytes] as
+ * produced by the node's Serializers, -1 for null; error messages are UTF-8.
+ *
+ *   GET  key                      -> OK value | NOT_FOUND
+ *   PUT  key value ttlMillis      -> OK          (ttl DEFAULT_TTL = node default)
+ *   MGET count key...             -> OK count (key value)...   (hits only)
+ *   DEL  key                      -> OK
+ *   SIZE                          -> OK size
+ *   SCAN cursor                   -> OK cursor count (key value expiresAt)...
+ *
+ * SCAN pages through the node's live entries, least recently used first.
+ * Cursor 0 starts a scan; the server answers with the cursor for the next
+ * page, or 0 after the last one. A scan is bound to its connection.
+ *
+ * Any request can also get ERROR message.
+ */
+final class CacheProtocol {
+    static final byte GET = 1;
+    static final byte PUT = 2;
+    static final byte MGET = 3;
+    static final byte DEL = 4;
+    static final byte SIZE = 5;
+    static final byte SCAN = 6;
+
+    static final byte OK = 0;
+    static final byte NOT_FOUND = 1;
+    static final byte ERROR = 2;
+
+    static final long DEFAULT_TTL = Long.MIN_VALUE;
+    static final int MAX_FRAME = 64 << 20;
+    // a SCAN page stops at whichever limit it reaches first
+    static final int SCAN_PAGE_ENTRIES = 1_000;
+    static final int SCAN_PAGE_BYTES = 1 << 20;
+
+    private CacheProtocol() {
+    }
+
+    // The next complete frame's body (id onwards) as a slice of in, or null if it hasn't all arrived.
+    static ByteBuffer nextFrame(ByteBuffer in) throws IOException {
+        if (in.remaining() < 4) return null;
+        int length = in.getInt(in.position());
+        if (length < 5 || length > MAX_FRAME) {
+            throw new IOException("Bad frame length " + length);
+        }
+        if (in.remaining() < 4 + length) return null;
+
+        ByteBuffer frame = in.slice(in.position() + 4, length);
+        in.position(in.position() + 4 + length);
+        return frame;
+    }
+
+    // After compact(): room for the whole frame that is partly read, and never completely full.
+    static ByteBuffer ensureCapacity(ByteBuffer in) {
+        int needed = in.position() >= 4 ? in.getInt(0) + 4 : 0;
+        if (needed <= in.capacity() && in.hasRemaining()) return in;
+
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(needed, in.capacity() * 2));
+        in.flip();
+        return bigger.put(in);
+    }
+
+    static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = getBytes(buffer);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static class FrameWriter {
+        private ByteBuffer buffer = ByteBuffer.allocate(128);
+
+        FrameWriter(int requestId, byte code) {
+            buffer.putInt(0).putInt(requestId).put(code);
+        }
+
+        FrameWriter putInt(int value) {
+            ensure(4).putInt(value);
+            return this;
+        }
+
+        FrameWriter putLong(long value) {
+            ensure(8).putLong(value);
+            return this;
+        }
+
+        FrameWriter putBytes(byte[] bytes) {
+            if (bytes == null) return putInt(-1);
+            ensure(4 + bytes.length).putInt(bytes.length).put(bytes);
+            return this;
+        }
+
+        FrameWriter putString(String value) {
+            return putBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Fills in the length and returns the frame ready to be written.
+        ByteBuffer finish() {
+            buffer.putInt(0, buffer.position() - 4);
+            return buffer.flip();
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer = bigger.put(buffer.flip());
+            }
+            return buffer;
+        }
+    }
+}
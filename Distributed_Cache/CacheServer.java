@@ -0,0 +1,268 @@
+package Distributed_Cache;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * Serves one CacheNode over TCP on a loopback port, speaking CacheProtocol.
+ * A single selector thread accepts connections, reads frames and answers
+ * them in order, so the node is only ever touched from that thread and a
+ * plain LocalCacheNode is enough. Clients may pipeline: every complete frame
+ * in a read is handled before the responses are flushed together.
+ * A SCAN copies the node's entries when it starts and serves them a page per
+ * request, so the node is walked once however many pages the client asks for.
+ */
+public class CacheServer<K, V> implements AutoCloseable {
+
+    private CacheNode<K, V> node;
+    private Serializer<K> keySerializer;
+    private Serializer<V> valueSerializer;
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread loop;
+    private volatile boolean running = true;
+
+    // port 0 picks a free port; see getPort()
+    public CacheServer(CacheNode<K, V> node, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                       int port) throws IOException {
+        this.node = node;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        this.loop = new Thread(this::run, "cache-server-" + getPort());
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (SelectionKey key : selector.keys()) closeQuietly(key.channel());
+        closeQuietly(server);
+        closeQuietly(selector);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                return;
+            }
+
+            Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                SelectionKey key = selected.next();
+                selected.remove();
+                try {
+                    if (key.isValid() && key.isAcceptable()) accept();
+                    if (key.isValid() && key.isReadable()) read(key);
+                    if (key.isValid() && key.isWritable()) write(key);
+                } catch (IOException e) {
+                    // one broken client must not take the server down
+                    key.cancel();
+                    closeQuietly(key.channel());
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = connection(key);
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (channel.read(connection.in) < 0) {
+            key.cancel();
+            channel.close();
+            return;
+        }
+
+        connection.in.flip();
+        ByteBuffer frame;
+        while ((frame = CacheProtocol.nextFrame(connection.in)) != null) {
+            connection.queue(handle(frame, connection));
+        }
+        connection.in.compact();
+        connection.in = CacheProtocol.ensureCapacity(connection.in);
+
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = connection(key);
+        connection.out.flip();
+        ((SocketChannel) key.channel()).write(connection.out);
+        boolean drained = !connection.out.hasRemaining();
+        connection.out.compact();
+        // stop reading from a client that isn't taking its responses
+        key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+    }
+
+    private ByteBuffer handle(ByteBuffer request, Connection connection) {
+        int id = request.getInt();
+        byte opcode = request.get();
+        try {
+            switch (opcode) {
+                case CacheProtocol.GET: {
+                    V value = node.get(key(request));
+                    if (value == null) return new CacheProtocol.FrameWriter(id, CacheProtocol.NOT_FOUND).finish();
+                    return new CacheProtocol.FrameWriter(id, CacheProtocol.OK)
+                            .putBytes(valueSerializer.serialize(value)).finish();
+                }
+                case CacheProtocol.PUT: {
+                    K key = key(request);
+                    V value = valueSerializer.deserialize(CacheProtocol.getBytes(request));
+                    long ttlMillis = request.getLong();
+                    if (ttlMillis == CacheProtocol.DEFAULT_TTL) {
+                        node.put(key, value);
+                    } else {
+                        node.put(key, value, ttlMillis);
+                    }
+                    return new CacheProtocol.FrameWriter(id, CacheProtocol.OK).finish();
+                }
+                case CacheProtocol.MGET: {
+                    List<K> keys = new ArrayList<>();
+                    for (int count = request.getInt(); count > 0; count--) keys.add(key(request));
+
+                    Map<K, V> hits = node.getAll(keys);
+                    CacheProtocol.FrameWriter response = new CacheProtocol.FrameWriter(id, CacheProtocol.OK)
+                            .putInt(hits.size());
+                    for (Map.Entry<K, V> hit : hits.entrySet()) {
+                        response.putBytes(keySerializer.serialize(hit.getKey()))
+                                .putBytes(valueSerializer.serialize(hit.getValue()));
+                    }
+                    return response.finish();
+                }
+                case CacheProtocol.DEL:
+                    node.remove(key(request));
+                    return new CacheProtocol.FrameWriter(id, CacheProtocol.OK).finish();
+                case CacheProtocol.SIZE:
+                    return new CacheProtocol.FrameWriter(id, CacheProtocol.OK).putInt(node.size()).finish();
+                case CacheProtocol.SCAN:
+                    return scanPage(id, request.getInt(), connection);
+                default:
+                    return error(id, "Unknown opcode " + opcode);
+            }
+        } catch (RuntimeException e) {
+            return error(id, e.toString());
+        }
+    }
+
+    private ByteBuffer scanPage(int id, int cursor, Connection connection) {
+        Iterator<ScanEntry<K, V>> scan;
+        if (cursor == 0) {
+            List<ScanEntry<K, V>> entries = new ArrayList<>();
+            node.forEachEntry((key, value, expiresAt) -> entries.add(new ScanEntry<>(key, value, expiresAt)));
+            scan = entries.iterator();
+            cursor = ++connection.lastScan;
+            connection.scans.put(cursor, scan);
+        } else {
+            scan = connection.scans.get(cursor);
+            if (scan == null) return error(id, "Unknown scan cursor " + cursor);
+        }
+
+        List<byte[]> keys = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        List<Long> expiries = new ArrayList<>();
+        int bytes = 0;
+        while (scan.hasNext() && keys.size() < CacheProtocol.SCAN_PAGE_ENTRIES && bytes < CacheProtocol.SCAN_PAGE_BYTES) {
+            ScanEntry<K, V> entry = scan.next();
+            byte[] key = keySerializer.serialize(entry.key);
+            byte[] value = valueSerializer.serialize(entry.value);
+            keys.add(key);
+            values.add(value);
+            expiries.add(entry.expiresAt);
+            bytes += key.length + value.length + 16;
+        }
+        if (!scan.hasNext()) {
+            connection.scans.remove(cursor);
+            cursor = 0;
+        }
+
+        CacheProtocol.FrameWriter response = new CacheProtocol.FrameWriter(id, CacheProtocol.OK)
+                .putInt(cursor)
+                .putInt(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            response.putBytes(keys.get(i)).putBytes(values.get(i)).putLong(expiries.get(i));
+        }
+        return response.finish();
+    }
+
+    // every key registered for reading carries a Connection of this server
+    @SuppressWarnings("unchecked")
+    private Connection connection(SelectionKey key) {
+        return (Connection) key.attachment();
+    }
+
+    private K key(ByteBuffer request) {
+        return keySerializer.deserialize(CacheProtocol.getBytes(request));
+    }
+
+    private static ByteBuffer error(int id, String message) {
+        return new CacheProtocol.FrameWriter(id, CacheProtocol.ERROR).putString(message).finish();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // shutting down anyway
+        }
+    }
+
+    private static class ScanEntry<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+
+        ScanEntry(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private class Connection {
+        // scans in progress on this connection, dropped with it
+        private Map<Integer, Iterator<ScanEntry<K, V>>> scans = new HashMap<>();
+        private int lastScan;
+        private ByteBuffer in = ByteBuffer.allocate(64 << 10);
+        // responses not yet written, in write mode
+        private ByteBuffer out = ByteBuffer.allocate(64 << 10);
+
+        void queue(ByteBuffer response) {
+            if (out.remaining() < response.remaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + response.remaining()));
+                out = bigger.put(out.flip());
+            }
+            out.put(response);
+        }
+    }
+}
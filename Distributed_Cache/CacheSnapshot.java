@@ -0,0 +1,120 @@
+package Distributed_Cache;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+
+/**
+ * Saves a node's contents to a compact binary file and loads them back for a
+ * warm restart. Entries are written from least to most recently used, so
+ * replaying them as puts rebuilds the same LRU order.
+ *
+ * Layout: magic, version, entry count, then per entry
+ * [expiresAt:8][keyLength:4][key][valueLength:4][value], keys and values as
+ * produced by the serializers passed in.
+ */
+public class CacheSnapshot {
+
+    private static final int MAGIC = 0x44435331; // "DCS1"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+
+    public static <K, V> long write(CacheNode<K, V> node, Path file,
+                                    Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+
+            long[] count = new long[1];
+            try {
+                node.forEachEntry((key, value, expiresAt) -> {
+                    byte[] keyBytes = keySerializer.serialize(key);
+                    byte[] valueBytes = valueSerializer.serialize(value);
+                    int size = 16 + keyBytes.length + valueBytes.length;
+
+                    try {
+                        if (buffer.remaining() < size) drain(buffer, channel);
+                        ByteBuffer target = size <= buffer.capacity() ? buffer : ByteBuffer.allocate(size);
+
+                        target.putLong(expiresAt);
+                        target.putInt(keyBytes.length).put(keyBytes);
+                        target.putInt(valueBytes.length).put(valueBytes);
+                        if (target != buffer) drain(target, channel);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            drain(buffer, channel);
+
+            // now that the count is known, patch it into the header
+            ByteBuffer header = ByteBuffer.allocate(8).putLong(count[0]);
+            header.flip();
+            channel.write(header, 8);
+            return count[0];
+        }
+    }
+
+    public static <K, V> long load(Path file, CacheNode<K, V> node,
+                                   Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        return load(file, node, keySerializer, valueSerializer, Clock.systemUTC());
+    }
+
+    // Replays the snapshot into node through memory-mapped reads; already-expired entries are skipped.
+    public static <K, V> long load(Path file, CacheNode<K, V> node, Serializer<K> keySerializer,
+                                   Serializer<V> valueSerializer, Clock clock) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot: " + file);
+            }
+            if (buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported snapshot version in " + file);
+            }
+
+            long count = buffer.getLong();
+            long now = clock.millis();
+            long loaded = 0;
+
+            for (long i = 0; i < count; i++) {
+                long expiresAt = buffer.getLong();
+                K key = keySerializer.deserialize(readBytes(buffer));
+                V value = valueSerializer.deserialize(readBytes(buffer));
+
+                if (expiresAt == 0) {
+                    node.put(key, value, 0);
+                    loaded++;
+                } else if (expiresAt > now) {
+                    node.put(key, value, expiresAt - now);
+                    loaded++;
+                }
+            }
+            return loaded;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot: " + file, e);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
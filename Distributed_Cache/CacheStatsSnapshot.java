@@ -0,0 +1,91 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+// Point-in-time copy of a StatsCounter; snapshots of several nodes add up with plus().
+public class CacheStatsSnapshot {
+    public static final int LATENCY_BUCKETS = 65;
+    public static final CacheStatsSnapshot EMPTY =
+            new CacheStatsSnapshot(0, 0, 0, 0, 0, 0, 0, 0, new long[LATENCY_BUCKETS]);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    // misses answered by the negative cache instead of the database
+    private final long negativeHitCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    // write-behind flushes the database rejected
+    private final long writeFailureCount;
+    private final long totalLoadNanos;
+    private final long[] loadLatencyBuckets;
+
+    public CacheStatsSnapshot(long hitCount, long missCount, long evictionCount, long negativeHitCount,
+                              long loadSuccessCount, long loadFailureCount, long writeFailureCount,
+                              long totalLoadNanos, long[] loadLatencyBuckets) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.negativeHitCount = negativeHitCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.writeFailureCount = writeFailureCount;
+        this.totalLoadNanos = totalLoadNanos;
+        this.loadLatencyBuckets = loadLatencyBuckets.clone();
+    }
+
+    public long getHitCount() { return hitCount; }
+    public long getMissCount() { return missCount; }
+    public long getEvictionCount() { return evictionCount; }
+    public long getNegativeHitCount() { return negativeHitCount; }
+    public long getLoadSuccessCount() { return loadSuccessCount; }
+    public long getLoadFailureCount() { return loadFailureCount; }
+    public long getWriteFailureCount() { return writeFailureCount; }
+    public long getTotalLoadNanos() { return totalLoadNanos; }
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public double averageLoadNanos() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0 : (double) totalLoadNanos / loads;
+    }
+
+    // Upper bound (a power of two) of the load latency at the given percentile, e.g. 0.99.
+    public long loadLatencyPercentileNanos(double percentile) {
+        long total = 0;
+        for (long count : loadLatencyBuckets) total += count;
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < loadLatencyBuckets.length; i++) {
+            seen += loadLatencyBuckets[i];
+            if (seen >= rank) return i == 0 ? 0 : 1L << Math.min(62, i);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public CacheStatsSnapshot plus(CacheStatsSnapshot other) {
+        long[] buckets = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = loadLatencyBuckets[i] + other.loadLatencyBuckets[i];
+        }
+        return new CacheStatsSnapshot(hitCount + other.hitCount, missCount + other.missCount,
+                evictionCount + other.evictionCount, negativeHitCount + other.negativeHitCount,
+                loadSuccessCount + other.loadSuccessCount,
+                loadFailureCount + other.loadFailureCount, writeFailureCount + other.writeFailureCount,
+                totalLoadNanos + other.totalLoadNanos, buckets);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "CacheStats{hits=%d, misses=%d, hitRate=%.3f, evictions=%d, negativeHits=%d, loads=%d, "
+                        + "loadFailures=%d, writeFailures=%d, avgLoad=%.1fus, p99Load<=%dus}",
+                hitCount, missCount, hitRate(), evictionCount, negativeHitCount, loadSuccessCount, loadFailureCount,
+                writeFailureCount, averageLoadNanos() / 1_000, loadLatencyPercentileNanos(0.99) / 1_000);
+    }
+}
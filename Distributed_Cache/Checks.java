@@ -0,0 +1,43 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * PASS/FAIL reporting shared by the *Check mains. Every check prints one line;
+ * finish() exits with status 1 if any of them failed, so a script or CI job
+ * running the checks sees the failure.
+ */
+final class Checks {
+
+    private static AtomicInteger failures = new AtomicInteger();
+
+    private Checks() {
+    }
+
+    static void check(String name, boolean ok) {
+        report(name, ok, "");
+    }
+
+    static void check(String name, Object actual, Object expected) {
+        report(name, Objects.equals(actual, expected), ": " + actual + " (expected " + expected + ")");
+    }
+
+    static void checkAtMost(String name, long actual, long max) {
+        report(name, actual <= max, ": " + actual + " (at most " + max + ")");
+    }
+
+    // call last in main
+    static void finish() {
+        int failed = failures.get();
+        if (failed > 0) {
+            System.out.println(failed + " check(s) failed");
+            System.exit(1);
+        }
+    }
+
+    private static void report(String name, boolean ok, String detail) {
+        if (!ok) failures.incrementAndGet();
+        System.out.println((ok ? "PASS " : "FAIL ") + name + detail);
+    }
+}
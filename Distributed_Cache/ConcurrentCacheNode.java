@@ -0,0 +1,199 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * Thread-safe node that splits its keyspace into independent segments.
+ * Each segment is a node with its own map, eviction state and lock, so
+ * threads touching different segments never wait for each other.
+ */
+public class ConcurrentCacheNode<K, V> implements CacheNode<K, V> {
+
+    private CacheNode<K, V>[] segments;
+    private Lock[] locks;
+    private int shift;
+    private StatsCounter stats = StatsCounter.DISABLED;
+
+    public ConcurrentCacheNode(int capacity, int segmentCount,
+                               Supplier<EvictionStrategy<K>> evictionStrategy) {
+        this(capacity, segmentCount,
+                segmentCapacity -> new LocalCacheNode<>(segmentCapacity, evictionStrategy.get()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentCacheNode(int capacity, int segmentCount, IntFunction<CacheNode<K, V>> segmentFactory) {
+        if (capacity <= 0 || segmentCount <= 0) {
+            throw new IllegalArgumentException("capacity and segmentCount must be positive");
+        }
+
+        // power of two, and never more segments than entries
+        int count = Integer.highestOneBit(Math.min(segmentCount, capacity));
+
+        this.segments = (CacheNode<K, V>[]) new CacheNode<?, ?>[count];
+        this.locks = new Lock[count];
+        this.shift = 32 - Integer.numberOfTrailingZeros(count);
+
+        // segment capacities add up to exactly the node capacity
+        for (int i = 0; i < count; i++) {
+            int segmentCapacity = capacity / count + (i < capacity % count ? 1 : 0);
+            segments[i] = segmentFactory.apply(segmentCapacity);
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        int i = segmentFor(key);
+        locks[i].lock();
+        try {
+            return segments[i].get(key);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public CacheEntry<K, V> getEntry(K key) {
+        int i = segmentFor(key);
+        locks[i].lock();
+        try {
+            return segments[i].getEntry(key);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public V peek(K key) {
+        int i = segmentFor(key);
+        locks[i].lock();
+        try {
+            return segments[i].peek(key);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    // takes each segment's lock once for all of its keys
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        List<List<K>> bySegment = new ArrayList<>(segments.length);
+        for (int i = 0; i < segments.length; i++) bySegment.add(null);
+
+        for (K key : keys) {
+            int i = segmentFor(key);
+            if (bySegment.get(i) == null) bySegment.set(i, new ArrayList<>());
+            bySegment.get(i).add(key);
+        }
+
+        Map<K, V> result = new HashMap<>();
+        for (int i = 0; i < segments.length; i++) {
+            List<K> segmentKeys = bySegment.get(i);
+            if (segmentKeys == null) continue;
+
+            locks[i].lock();
+            try {
+                for (K key : segmentKeys) {
+                    V value = segments[i].get(key);
+                    if (value != null) result.put(key, value);
+                }
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int i = segmentFor(key);
+        locks[i].lock();
+        try {
+            segments[i].put(key, value);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, V value, long ttlMillis) {
+        int i = segmentFor(key);
+        locks[i].lock();
+        try {
+            segments[i].put(key, value, ttlMillis);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        int i = segmentFor(key);
+        locks[i].lock();
+        try {
+            segments[i].remove(key);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    // one segment at a time, so readers of other segments are never blocked by the sweep
+    @Override
+    public void cleanUp() {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].cleanUp();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                size += segments[i].size();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return size;
+    }
+
+    // Segment by segment; recency order holds within each segment, which is where LRU applies.
+    @Override
+    public void forEachEntry(CacheEntryVisitor<K, V> visitor) {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].forEachEntry(visitor);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public StatsCounter stats() {
+        return stats;
+    }
+
+    // LongAdder-based counters are safe to share, so every segment records into one
+    @Override
+    public void setStatsCounter(StatsCounter stats) {
+        this.stats = stats;
+        for (CacheNode<K, V> segment : segments) segment.setStatsCounter(stats);
+    }
+
+    private int segmentFor(K key) {
+        if (segments.length == 1) return 0;
+        // top bits of a Fibonacci hash, independent of the low bits the distribution strategy uses
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+}
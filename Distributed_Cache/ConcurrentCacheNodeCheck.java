@@ -0,0 +1,84 @@
+package Distributed_Cache;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Hammers a ConcurrentCacheNode from many threads.
+ * Checks that no entry is lost while there is room, and that capacity is never exceeded.
+ */
+public class ConcurrentCacheNodeCheck {
+
+    public static void main(String[] args) throws Exception {
+        int threads = 8;
+
+        // 1. enough room for every key: all of them must survive
+        // (capacity is split per segment, so leave headroom for an uneven hash spread)
+        int perThread = 25_000;
+        CacheNode<String, String> roomy = new ConcurrentCacheNode<>(2 * threads * perThread, 16, EvictionByLRU::new);
+        run(threads, t -> {
+            for (int i = 0; i < perThread; i++) {
+                String key = t + ":" + i;
+                roomy.put(key, "v" + key);
+            }
+        });
+
+        int lost = 0;
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                String key = t + ":" + i;
+                if (!("v" + key).equals(roomy.get(key))) lost++;
+            }
+        }
+        Checks.check("entries lost", lost, 0);
+
+        // 2. heavy eviction: size must stay within capacity and values must match their keys
+        int capacity = 1_000;
+        CacheNode<String, String> tight = new ConcurrentCacheNode<>(capacity, 16, EvictionByLRU::new);
+        AtomicInteger maxSize = new AtomicInteger();
+        AtomicInteger wrongValues = new AtomicInteger();
+
+        run(threads, t -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 200_000; i++) {
+                String key = "k" + random.nextInt(20_000);
+                if (random.nextBoolean()) {
+                    tight.put(key, "v" + key);
+                    // after every put, so a transient overshoot can't slip between samples
+                    maxSize.accumulateAndGet(tight.size(), Math::max);
+                } else {
+                    String value = tight.get(key);
+                    if (value != null && !value.equals("v" + key)) wrongValues.incrementAndGet();
+                }
+            }
+        });
+
+        Checks.checkAtMost("max size seen after a put", maxSize.get(), capacity);
+        Checks.check("final size", tight.size(), capacity);
+        Checks.check("wrong values", wrongValues.get(), 0);
+        Checks.finish();
+    }
+
+    private interface Task {
+        void run(int thread);
+    }
+
+    private static void run(int threads, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?>[] futures = new Future<?>[threads];
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures[t] = pool.submit(() -> {
+                start.await();
+                task.run(thread);
+                return null;
+            });
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) future.get();
+        pool.shutdown();
+    }
+}
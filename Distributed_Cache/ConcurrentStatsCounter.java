@@ -0,0 +1,77 @@
+package Distributed_Cache;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Counters built on LongAdder, which stripes updates across cells so threads
+ * recording at the same time don't contend on one cache line. Load latencies
+ * go into power-of-two nanosecond buckets: bucket i holds loads that took
+ * less than 2^i ns.
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+
+    private LongAdder hits = new LongAdder();
+    private LongAdder misses = new LongAdder();
+    private LongAdder evictions = new LongAdder();
+    private LongAdder negativeHits = new LongAdder();
+    private LongAdder loadSuccesses = new LongAdder();
+    private LongAdder loadFailures = new LongAdder();
+    private LongAdder writeFailures = new LongAdder();
+    private LongAdder totalLoadNanos = new LongAdder();
+    private LongAdder[] loadLatency = new LongAdder[CacheStatsSnapshot.LATENCY_BUCKETS];
+
+    public ConcurrentStatsCounter() {
+        for (int i = 0; i < loadLatency.length; i++) loadLatency[i] = new LongAdder();
+    }
+
+    @Override
+    public void recordHit() {
+        hits.increment();
+    }
+
+    @Override
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    @Override
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    @Override
+    public void recordNegativeHit() {
+        negativeHits.increment();
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadNanos) {
+        loadSuccesses.increment();
+        recordLatency(loadNanos);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadNanos) {
+        loadFailures.increment();
+        recordLatency(loadNanos);
+    }
+
+    @Override
+    public void recordWriteFailure() {
+        writeFailures.increment();
+    }
+
+    @Override
+    public CacheStatsSnapshot snapshot() {
+        long[] buckets = new long[loadLatency.length];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = loadLatency[i].sum();
+
+        return new CacheStatsSnapshot(hits.sum(), misses.sum(), evictions.sum(), negativeHits.sum(),
+                loadSuccesses.sum(), loadFailures.sum(), writeFailures.sum(), totalLoadNanos.sum(), buckets);
+    }
+
+    private void recordLatency(long nanos) {
+        totalLoadNanos.add(nanos);
+        loadLatency[64 - Long.numberOfLeadingZeros(Math.max(0, nanos))].increment();
+    }
+}
@@ -0,0 +1,116 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+/**
+ * Counts how many keys change owner when a node joins and when one leaves.
+ * Consistent hashing should move about 1/N of the keys; modulo moves most of them.
+ * Also checks that two clients whose nodes have the same ids build the same ring,
+ * and that nodes without an id keep distinct names across removals.
+ */
+public class ConsistentHashCheck {
+
+    public static void main(String[] args) {
+        int keys = 100_000;
+
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            nodes.add(new LocalCacheNode<>(10, new EvictionByLRU<>()));
+        }
+
+        report("Consistent hashing", new ConsistentHashDistribution<>(), nodes, keys);
+        report("Modulo", new ModuloDistribution<>(), nodes, keys);
+
+        // another process's proxies to the same servers: new objects, listed in another order
+        List<CacheNode<String, String>> client = new ArrayList<>();
+        List<CacheNode<String, String>> otherClient = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            client.add(named("10.0.0." + i + ":7000"));
+            otherClient.add(0, named("10.0.0." + i + ":7000"));
+        }
+        ConsistentHashDistribution<String> ring = new ConsistentHashDistribution<>();
+        ConsistentHashDistribution<String> otherRing = new ConsistentHashDistribution<>();
+        int disagreements = 0;
+        for (int i = 0; i < keys; i++) {
+            String owner = ring.getNode("key-" + i, client).id();
+            if (!owner.equals(otherRing.getNode("key-" + i, otherClient).id())) disagreements++;
+        }
+        Checks.check("keys two clients place on different nodes", disagreements, 0);
+
+        boolean rejected;
+        try {
+            new ConsistentHashDistribution<String>().getNode("key", List.of(named("same"), named("same")));
+            rejected = false;
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        Checks.check("duplicate ids rejected", rejected);
+
+        // a removed id-less node is collected, and the next one must not reuse a live node's name
+        ConsistentHashDistribution<String> unnamed = new ConsistentHashDistribution<>();
+        List<CacheNode<String, String>> members = new ArrayList<>();
+        for (int i = 0; i < 4; i++) members.add(new LocalCacheNode<>(10, new EvictionByLRU<>()));
+        boolean renamed = true;
+        try {
+            for (int round = 0; round < 4; round++) {
+                unnamed.getNode("key", members);
+                members.remove(0);
+                unnamed.getNode("key", members);
+                members.add(new LocalCacheNode<>(10, new EvictionByLRU<>()));
+                unnamed.getNode("key", members);
+                System.gc();
+            }
+        } catch (IllegalArgumentException e) {
+            renamed = false;
+        }
+        Checks.check("id-less nodes keep distinct names after removals", renamed);
+        Checks.finish();
+    }
+
+    private static CacheNode<String, String> named(String id) {
+        return new LocalCacheNode<String, String>(10, new EvictionByLRU<>()) {
+            @Override
+            public String id() {
+                return id;
+            }
+        };
+    }
+
+    private static void report(String name, DistributionStrategy<String> strategy,
+                               List<CacheNode<String, String>> nodes, int keys) {
+        List<CacheNode<String, String>> grown = new ArrayList<>(nodes);
+        grown.add(new LocalCacheNode<>(10, new EvictionByLRU<>()));
+
+        List<CacheNode<String, String>> shrunk = new ArrayList<>(nodes);
+        shrunk.remove(2);
+
+        int joined = moved(strategy, nodes, grown, keys);
+        int left = moved(strategy, nodes, shrunk, keys);
+
+        System.out.println("=== " + name + " ===");
+        System.out.printf("Node joins (5 -> 6): %.1f%% of keys moved (ideal %.1f%%)%n",
+                100.0 * joined / keys, 100.0 / grown.size());
+        System.out.printf("Node leaves (5 -> 4): %.1f%% of keys moved (ideal %.1f%%)%n",
+                100.0 * left / keys, 100.0 / nodes.size());
+        // modulo is only there for comparison; the ring must stay near the ideal
+        if (strategy instanceof ConsistentHashDistribution) {
+            Checks.checkAtMost(name + ": keys moved on join", joined, keys * 3L / 2 / grown.size());
+            Checks.checkAtMost(name + ": keys moved on leave", left, keys * 3L / 2 / nodes.size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int moved(DistributionStrategy<String> strategy, List<CacheNode<String, String>> before,
+                             List<CacheNode<String, String>> after, int keys) {
+        CacheNode<String, String>[] owners = (CacheNode<String, String>[]) new CacheNode<?, ?>[keys];
+        for (int i = 0; i < keys; i++) {
+            owners[i] = strategy.getNode("key-" + i, before);
+        }
+
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            if (strategy.getNode("key-" + i, after) != owners[i]) moved++;
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,174 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Places every node on a hash ring at several virtual points, so adding or
+ * removing one node only moves the keys between it and its ring neighbours
+ * (about 1/N of the keyspace) instead of remapping almost everything.
+ * A node's points are derived from its id(), so clients and restarts that see
+ * the same ids build the same ring. Nodes without an id are named node-0,
+ * node-1, ... in the order this distribution first sees them.
+ */
+public class ConsistentHashDistribution<K> implements DistributionStrategy<K> {
+
+    private int virtualNodes;
+    // names given to nodes without an id; weak, so removed nodes can be collected
+    private Map<CacheNode<?, ?>, String> ordinals = new WeakHashMap<>();
+    // never reused: the map shrinks as removed nodes are collected
+    private AtomicInteger nextOrdinal = new AtomicInteger();
+
+    // Rebuilt only when the node list changes; lookups just read it. The previous
+    // ring is kept too, so lookups against old and new membership during a
+    // rebalance don't rebuild on every call.
+    private volatile Ring ring = new Ring(new CacheNode<?, ?>[0], new int[0], new CacheNode<?, ?>[0]);
+    private volatile Ring previousRing = ring;
+
+    public ConsistentHashDistribution() {
+        this(160);
+    }
+
+    public ConsistentHashDistribution(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> CacheNode<K, V> getNode(K key, List<CacheNode<K, V>> nodes) {
+        Ring current = ringFor(nodes);
+        return (CacheNode<K, V>) current.owners[position(current, key)];
+    }
+
+    // Walks clockwise from the key, skipping virtual points of nodes already chosen.
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> List<CacheNode<K, V>> getNodes(K key, List<CacheNode<K, V>> nodes, int count) {
+        Ring current = ringFor(nodes);
+        int wanted = Math.min(count, current.members.length);
+        int start = position(current, key);
+
+        List<CacheNode<K, V>> result = new ArrayList<>(wanted);
+        for (int i = 0; result.size() < wanted; i++) {
+            CacheNode<K, V> owner = (CacheNode<K, V>) current.owners[(start + i) % current.owners.length];
+            if (!result.contains(owner)) result.add(owner);
+        }
+        return result;
+    }
+
+    private int position(Ring current, K key) {
+        // Signed hashes cover the whole ring, so there is no Math.abs to overflow.
+        int index = Arrays.binarySearch(current.hashes, mix(key.hashCode()));
+        if (index < 0) index = -index - 1;
+        if (index == current.hashes.length) index = 0;
+        return index;
+    }
+
+    private Ring ringFor(List<? extends CacheNode<?, ?>> nodes) {
+        Ring current = ring;
+        if (current.hasMembers(nodes)) return current;
+        Ring previous = previousRing;
+        if (previous.hasMembers(nodes)) return previous;
+
+        synchronized (this) {
+            if (ring.hasMembers(nodes)) return ring;
+            if (previousRing.hasMembers(nodes)) return previousRing;
+
+            Ring built = build(nodes);
+            previousRing = ring;
+            ring = built;
+            return built;
+        }
+    }
+
+    private Ring build(List<? extends CacheNode<?, ?>> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("No cache nodes available");
+        }
+
+        CacheNode<?, ?>[] members = nodes.toArray(new CacheNode<?, ?>[0]);
+        long[] points = new long[members.length * virtualNodes];
+        Set<String> ids = new HashSet<>();
+
+        int p = 0;
+        for (int n = 0; n < members.length; n++) {
+            String id = idOf(members[n]);
+            if (!ids.add(id)) {
+                throw new IllegalArgumentException("Two cache nodes share the id " + id);
+            }
+            long seed = hash64(id);
+            for (int v = 0; v < virtualNodes; v++) {
+                int hash = (int) (mix64(seed + v) >>> 32);
+                // hash in the high half, member index in the low half, so one sort orders both
+                points[p++] = ((long) hash << 32) | n;
+            }
+        }
+        Arrays.sort(points);
+
+        int[] hashes = new int[points.length];
+        CacheNode<?, ?>[] owners = new CacheNode<?, ?>[points.length];
+        for (int i = 0; i < points.length; i++) {
+            hashes[i] = (int) (points[i] >> 32);
+            owners[i] = members[(int) points[i]];
+        }
+        return new Ring(members, hashes, owners);
+    }
+
+    // caller holds the lock
+    private String idOf(CacheNode<?, ?> node) {
+        String id = node.id();
+        if (id != null) return id;
+        return ordinals.computeIfAbsent(node, ignored -> "node-" + nextOrdinal.getAndIncrement());
+    }
+
+    // FNV-1a over the chars; unlike String.hashCode it uses all 64 bits
+    private static long hash64(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // murmur3 finalizers: String.hashCode clusters badly for short sequential keys
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb1e3e2ba6345L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static class Ring {
+        private final CacheNode<?, ?>[] members;
+        private final int[] hashes;
+        private final CacheNode<?, ?>[] owners;
+
+        Ring(CacheNode<?, ?>[] members, int[] hashes, CacheNode<?, ?>[] owners) {
+            this.members = members;
+            this.hashes = hashes;
+            this.owners = owners;
+        }
+
+        boolean hasMembers(List<? extends CacheNode<?, ?>> nodes) {
+            if (nodes.size() != members.length || members.length == 0) return false;
+            for (int i = 0; i < members.length; i++) {
+                if (nodes.get(i) != members[i]) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package Distributed_Cache;
 
 import java.util.*;
+import java.util.concurrent.*;
 
-public class Database {
-    private Map<String, String> db = new HashMap<>();
+public class Database<K, V> {
+    private Map<K, V> db = new ConcurrentHashMap<>();
 
-    public String get(String key) {
-        System.out.println("Fetching from DB: " + key);
+    public V get(K key) {
         return db.get(key);
     }
 
-    public void put(String key, String value) {
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> result = new HashMap<>();
+        for (K key : keys) {
+            V value = db.get(key);
+            if (value != null) result.put(key, value);
+        }
+        return result;
+    }
+
+    public void put(K key, V value) {
         db.put(key, value);
     }
-}
\ No newline at end of file
+
+    public void putAll(Map<K, V> entries) {
+        db.putAll(entries);
+    }
+}
@@ -0,0 +1,17 @@
+package Distributed_Cache;
+
+// Records nothing; the default until stats are switched on.
+class DisabledStatsCounter implements StatsCounter {
+    @Override public void recordHit() {}
+    @Override public void recordMiss() {}
+    @Override public void recordEviction() {}
+    @Override public void recordNegativeHit() {}
+    @Override public void recordLoadSuccess(long loadNanos) {}
+    @Override public void recordLoadFailure(long loadNanos) {}
+    @Override public void recordWriteFailure() {}
+
+    @Override
+    public CacheStatsSnapshot snapshot() {
+        return CacheStatsSnapshot.EMPTY;
+    }
+}
@@ -1,39 +1,635 @@
 package Distributed_Cache;
 
+import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
-public class DistributedCache {
-    private List<CacheNode> nodes;
-    private DistributionStrategy strategy;
-    private Database database;
+public class DistributedCache<K, V> implements AutoCloseable {
+    // replaced as a whole on addNode/removeNode, never modified in place
+    private volatile List<CacheNode<K, V>> nodes;
+    private DistributionStrategy<K> strategy;
+    private Database<K, V> database;
 
-    public DistributedCache(List<CacheNode> nodes,
-                            DistributionStrategy strategy,
-                            Database database) {
-        this.nodes = nodes;
-        this.strategy = strategy;
-        this.database = database;
+    // every key lives on this many distinct nodes; reads pick one by readPolicy
+    private int replicationFactor;
+    private ReadPolicy readPolicy;
+    private AtomicInteger nextReplica = new AtomicInteger();
+    private ConcurrentMap<CacheNode<K, V>, AtomicInteger> activeReads = new ConcurrentHashMap<>();
+
+    // one database load per key at a time; later callers wait on the same future
+    private ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private Executor loadExecutor;
+
+    // null in WRITE_THROUGH mode
+    private WriteBehindQueue<K, V> writeBehind;
+
+    // Entries older than this are reloaded in the background on their next read,
+    // which still returns the current value. 0 turns refresh off.
+    private long refreshAfterWriteMillis;
+    private Clock clock;
+    // Keys being refreshed, mapped to whether the reloaded value was written. A map for
+    // compute(), which puts and the finishing refresh use to write a key under one lock.
+    private ConcurrentMap<K, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    // keys the database didn't have; null unless a negative TTL is configured
+    private NegativeCache<K> negativeCache;
+
+    // told about every key whose value changed, e.g. near caches holding a copy
+    private List<InvalidationListener<K>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    // database load counts and latency; hits, misses and evictions are kept per node
+    private StatsCounter stats = StatsCounter.DISABLED;
+    private boolean recordStats;
+
+    // Membership before the change being migrated, null when none is running.
+    // Reads that miss on the new owner fall back to the old one while it is set.
+    private volatile List<CacheNode<K, V>> previousNodes;
+    // Keys written since migration started; their old copies must not overwrite the new value.
+    // A map rather than a set for compute(), which marks or checks a key and writes it under
+    // one per-key lock.
+    private ConcurrentMap<K, Boolean> writtenDuringMigration = new ConcurrentHashMap<>();
+    private CompletableFuture<Void> rebalancing = CompletableFuture.completedFuture(null);
+    private ExecutorService rebalancer;
+
+    public DistributedCache(List<CacheNode<K, V>> nodes,
+                            DistributionStrategy<K> strategy,
+                            Database<K, V> database) {
+        this(new Builder<>(nodes, strategy, database));
     }
 
-    public String get(String key) {
-        CacheNode node = strategy.getNode(key, nodes);
+    private DistributedCache(Builder<K, V> b) {
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(b.nodes));
+        this.strategy = b.strategy;
+        this.database = b.database;
+        this.replicationFactor = b.replicationFactor;
+        this.readPolicy = b.readPolicy;
+        this.loadExecutor = b.loadExecutor;
+        this.refreshAfterWriteMillis = b.refreshAfterWriteMillis;
+        this.clock = b.clock;
+        if (b.negativeTtlMillis > 0) {
+            this.negativeCache = new NegativeCache<>(b.negativeCacheMaxSize, 16, b.negativeTtlMillis, b.clock);
+        }
 
-        String value = node.get(key);
+        if (b.writeMode == WriteMode.WRITE_BEHIND) {
+            this.writeBehind = new WriteBehindQueue<>(database, b.writeBehindBatchSize,
+                    b.writeBehindIntervalMillis);
+        }
+
+        this.recordStats = b.recordStats;
+        if (b.recordStats) {
+            this.stats = new ConcurrentStatsCounter();
+            for (CacheNode<K, V> node : nodes) node.setStatsCounter(new ConcurrentStatsCounter());
+            if (writeBehind != null) writeBehind.setStatsCounter(stats);
+        }
+    }
+
+    public V get(K key) {
+        List<CacheNode<K, V>> replicas = replicasFor(key);
+
+        V value = read(replicas, key);
+        if (value == null) value = readFromPreviousOwner(key, replicas);
         if (value != null) return value;
+        if (knownMissing(key)) return null;
+
+        // the caller that wins the race loads on its own thread
+        try {
+            return load(key, replicas, Runnable::run).join();
+        } catch (CompletionException e) {
+            // the loader's own exception, as if this thread had called it
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    public CompletableFuture<V> getAsync(K key) {
+        List<CacheNode<K, V>> replicas = replicasFor(key);
+
+        V value = read(replicas, key);
+        if (value == null) value = readFromPreviousOwner(key, replicas);
+        if (value != null) return CompletableFuture.completedFuture(value);
+        if (knownMissing(key)) return CompletableFuture.completedFuture(null);
+
+        return load(key, replicas, loadExecutor);
+    }
+
+    /**
+     * Looks up many keys with one pass per serving node and a single database
+     * call for everything that missed. Keys found nowhere are left out of the result.
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, List<CacheNode<K, V>>> replicasByKey = new HashMap<>();
+        Map<CacheNode<K, V>, List<K>> byNode = new IdentityHashMap<>();
+        for (K key : keys) {
+            List<CacheNode<K, V>> replicas = replicasFor(key);
+            replicasByKey.put(key, replicas);
+            byNode.computeIfAbsent(chooseReplica(replicas), n -> new ArrayList<>()).add(key);
+        }
+
+        Map<K, V> result = new HashMap<>();
+        List<K> misses = new ArrayList<>();
+
+        for (Map.Entry<CacheNode<K, V>, List<K>> group : byNode.entrySet()) {
+            Map<K, V> hits = group.getKey().getAll(group.getValue());
+            result.putAll(hits);
+            if (hits.size() == group.getValue().size()) continue;
+
+            for (K key : group.getValue()) {
+                if (hits.containsKey(key)) continue;
+
+                V value = readFromPreviousOwner(key, replicasByKey.get(key));
+                if (value != null) {
+                    result.put(key, value);
+                } else if (!knownMissing(key)) {
+                    misses.add(key);
+                }
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            long[] versions = new long[misses.size()];
+            if (negativeCache != null) {
+                for (int i = 0; i < versions.length; i++) versions[i] = negativeCache.version(misses.get(i));
+            }
+
+            Map<K, V> loaded = loadAllFromDatabase(misses);
+            for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                for (CacheNode<K, V> replica : replicasByKey.get(entry.getKey())) {
+                    replica.put(entry.getKey(), entry.getValue());
+                }
+            }
+            result.putAll(loaded);
+
+            if (negativeCache != null) {
+                for (int i = 0; i < versions.length; i++) {
+                    if (!loaded.containsKey(misses.get(i))) negativeCache.add(misses.get(i), versions[i]);
+                }
+            }
+        }
+        return result;
+    }
 
-        value = database.get(key);
-        if (value != null) {
-            node.put(key, value);
+    public void put(K key, V value) {
+        writeReplicas(key, node -> node.put(key, value));
+
+        write(key, value);
+        // after the write, so a load that missed before it can't cache the miss again
+        if (negativeCache != null) negativeCache.invalidate(key);
+        fireInvalidated(key);
+    }
+
+    public void put(K key, V value, long ttlMillis) {
+        writeReplicas(key, node -> node.put(key, value, ttlMillis));
+
+        write(key, value);
+        if (negativeCache != null) negativeCache.invalidate(key);
+        fireInvalidated(key);
+    }
+
+    /**
+     * Adds a node at runtime. Keys it now owns are copied to it in the background;
+     * until that finishes, reads that miss on it are served by the previous owner.
+     * The returned future completes when migration is done. Migration reads and writes
+     * the nodes from its own thread while callers keep using them, so every node must
+     * be thread-safe, e.g. a LocalCacheNode wrapped in ConcurrentCacheNode.
+     */
+    public synchronized CompletableFuture<Void> addNode(CacheNode<K, V> node) {
+        if (nodes.contains(node)) {
+            throw new IllegalArgumentException("Node is already part of the cache");
+        }
+        if (recordStats) node.setStatsCounter(new ConcurrentStatsCounter());
+
+        List<CacheNode<K, V>> updated = new ArrayList<>(nodes);
+        updated.add(node);
+        return changeMembership(updated);
+    }
+
+    // Removes a node at runtime; it keeps serving fallback reads until its keys have moved.
+    // Like addNode, only for caches whose nodes are all thread-safe.
+    public synchronized CompletableFuture<Void> removeNode(CacheNode<K, V> node) {
+        if (!nodes.contains(node)) {
+            throw new IllegalArgumentException("Node is not part of the cache");
+        }
+        if (nodes.size() == 1) {
+            throw new IllegalStateException("Cannot remove the last cache node");
+        }
+
+        List<CacheNode<K, V>> updated = new ArrayList<>(nodes);
+        updated.remove(node);
+        return changeMembership(updated);
+    }
+
+    public void addInvalidationListener(InvalidationListener<K> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    public void removeInvalidationListener(InvalidationListener<K> listener) {
+        invalidationListeners.remove(listener);
+    }
+
+    public List<CacheNode<K, V>> getNodes() {
+        return nodes;
+    }
+
+    // Totals across all nodes plus the database load latencies of this cache.
+    public CacheStatsSnapshot snapshot() {
+        CacheStatsSnapshot total = stats.snapshot();
+        for (CacheNode<K, V> node : nodes) {
+            total = total.plus(node.stats().snapshot());
         }
+        return total;
+    }
 
-        return value;
+    // Flushes any queued write-behind updates to the database.
+    @Override
+    public void close() {
+        awaitMigration();
+        if (rebalancer != null) rebalancer.shutdown();
+        if (writeBehind != null) writeBehind.close();
     }
 
-    public void put(String key, String value) {
-        CacheNode node = strategy.getNode(key, nodes);
+    private CompletableFuture<Void> changeMembership(List<CacheNode<K, V>> updated) {
+        // one migration at a time
+        awaitMigration();
 
-        node.put(key, value);
+        List<CacheNode<K, V>> before = nodes;
+        List<CacheNode<K, V>> after = Collections.unmodifiableList(updated);
+
+        writtenDuringMigration.clear();
+        previousNodes = before;
+        nodes = after;
+
+        if (rebalancer == null) {
+            rebalancer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-rebalancer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        rebalancing = CompletableFuture
+                .runAsync(() -> migrate(before, after), rebalancer)
+                .whenComplete((ignored, error) -> {
+                    previousNodes = null;
+                    writtenDuringMigration.clear();
+                    // removed nodes served fallback reads until now; drop their read counters
+                    activeReads.keySet().retainAll(after);
+                });
+        return rebalancing;
+    }
+
+    // Copies every key whose replica set changed to its new replicas, then drops stale copies.
+    private void migrate(List<CacheNode<K, V>> before, List<CacheNode<K, V>> after) {
+        // with replicas several old nodes hold the same key; move it only once
+        Set<K> moved = new HashSet<>();
+
+        for (CacheNode<K, V> source : before) {
+            List<Move<K, V>> moves = new ArrayList<>();
+            source.forEachEntry((key, value, expiresAt) -> {
+                List<CacheNode<K, V>> oldReplicas = replicasFor(key, before);
+                List<CacheNode<K, V>> newReplicas = replicasFor(key, after);
+                if (!oldReplicas.equals(newReplicas) && moved.add(key)) {
+                    moves.add(new Move<>(key, value, expiresAt, oldReplicas, newReplicas));
+                }
+            });
+
+            // applied outside forEachEntry so no node is modified while it is being walked
+            for (Move<K, V> move : moves) {
+                long ttlMillis = move.expiresAt == 0 ? 0 : move.expiresAt - clock.millis();
+                if (move.expiresAt != 0 && ttlMillis <= 0) continue;
+
+                // checked and copied under the key's lock, so a put can't land in between
+                writtenDuringMigration.compute(move.key, (key, written) -> {
+                    if (written != null) return written;
+                    for (CacheNode<K, V> target : move.newReplicas) {
+                        if (!move.oldReplicas.contains(target)) target.put(key, move.value, ttlMillis);
+                    }
+                    return null;
+                });
+            }
+            for (Move<K, V> move : moves) {
+                for (CacheNode<K, V> stale : move.oldReplicas) {
+                    if (!move.newReplicas.contains(stale) && after.contains(stale)) stale.remove(move.key);
+                }
+            }
+        }
+    }
+
+    // A failed migration was already reported through the future addNode/removeNode returned;
+    // it must not fail every later membership change or close().
+    private void awaitMigration() {
+        rebalancing.handle((ignored, error) -> null).join();
+    }
 
-        database.put(key, value);
+    private void writeReplicas(K key, Consumer<CacheNode<K, V>> write) {
+        if (refreshAfterWriteMillis <= 0) {
+            writeOwners(key, write);
+            return;
+        }
+        // under the key's lock in refreshing, so a refresh can't find the old value and
+        // then write its reload over this one
+        refreshing.compute(key, (k, wrote) -> {
+            writeOwners(key, write);
+            return wrote;
+        });
+    }
+
+    private void writeOwners(K key, Consumer<CacheNode<K, V>> write) {
+        if (previousNodes == null) {
+            for (CacheNode<K, V> node : replicasFor(key)) write.accept(node);
+            return;
+        }
+        // marked and written under the key's lock, so migration can't copy its old value over this one
+        writtenDuringMigration.compute(key, (k, written) -> {
+            for (CacheNode<K, V> node : replicasFor(key)) write.accept(node);
+            return Boolean.TRUE;
+        });
+    }
+
+    private V readFromPreviousOwner(K key, List<CacheNode<K, V>> replicas) {
+        List<CacheNode<K, V>> before = previousNodes;
+        if (before == null) return null;
+
+        CacheNode<K, V> previousOwner = strategy.getNode(key, before);
+        if (replicas.contains(previousOwner)) return null;
+        return previousOwner.get(key);
+    }
+
+    private List<CacheNode<K, V>> replicasFor(K key) {
+        return replicasFor(key, nodes);
+    }
+
+    private List<CacheNode<K, V>> replicasFor(K key, List<CacheNode<K, V>> members) {
+        if (replicationFactor == 1) {
+            return Collections.singletonList(strategy.getNode(key, members));
+        }
+        return strategy.getNodes(key, members, replicationFactor);
+    }
+
+    private CacheNode<K, V> chooseReplica(List<CacheNode<K, V>> replicas) {
+        if (replicas.size() == 1 || readPolicy == ReadPolicy.PRIMARY) return replicas.get(0);
+
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        if (readPolicy == ReadPolicy.ROUND_ROBIN) return replicas.get(start);
+
+        // LEAST_LOADED: start from the rotating offset so ties still spread
+        CacheNode<K, V> best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            CacheNode<K, V> candidate = replicas.get((start + i) % replicas.size());
+            int load = activeReads(candidate).get();
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private V read(List<CacheNode<K, V>> replicas, K key) {
+        CacheNode<K, V> node = chooseReplica(replicas);
+        if (readPolicy != ReadPolicy.LEAST_LOADED) return readFrom(node, key);
+
+        AtomicInteger active = activeReads(node);
+        active.incrementAndGet();
+        try {
+            return readFrom(node, key);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private V readFrom(CacheNode<K, V> node, K key) {
+        if (refreshAfterWriteMillis <= 0) return node.get(key);
+
+        CacheEntry<K, V> entry = node.getEntry(key);
+        if (entry == null) return null;
+        // write time 0 means the node doesn't track it
+        if (entry.getWriteTime() != 0 && clock.millis() - entry.getWriteTime() >= refreshAfterWriteMillis) {
+            refresh(key, node, entry);
+        }
+        return entry.getValue();
+    }
+
+    // Reloads one key off the caller's thread; a key already being refreshed is skipped.
+    // The new value gets the TTL the entry was written with, counted from the refresh.
+    // If a put changed the value meanwhile, the database read may predate it, so the
+    // reloaded value is dropped.
+    private void refresh(K key, CacheNode<K, V> source, CacheEntry<K, V> entry) {
+        if (refreshing.putIfAbsent(key, Boolean.FALSE) != null) return;
+
+        long ttlMillis = entry.getExpiresAt() == 0 ? 0 : entry.getExpiresAt() - entry.getWriteTime();
+        try {
+            loadExecutor.execute(() -> {
+                try {
+                    long version = negativeCache == null ? 0 : negativeCache.version(key);
+                    V value = loadFromDatabase(key);
+                    // peek: checking for a newer value is not a read to count
+                    refreshing.compute(key, (k, wrote) -> {
+                        if (!Objects.equals(source.peek(key), entry.getValue())) return Boolean.FALSE;
+                        for (CacheNode<K, V> replica : replicasFor(key)) {
+                            if (value != null) {
+                                replica.put(key, value, ttlMillis);
+                            } else {
+                                replica.remove(key);
+                            }
+                        }
+                        return Boolean.TRUE;
+                    });
+                    if (!refreshing.get(key)) return;
+                    if (value == null && negativeCache != null) negativeCache.add(key, version);
+                    fireInvalidated(key);
+                } catch (RuntimeException e) {
+                    // keep serving the current value; the next read past the threshold retries
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void fireInvalidated(K key) {
+        for (InvalidationListener<K> listener : invalidationListeners) listener.invalidated(key);
+    }
+
+    private boolean knownMissing(K key) {
+        if (negativeCache == null || !negativeCache.contains(key)) return false;
+        stats.recordNegativeHit();
+        return true;
+    }
+
+    private AtomicInteger activeReads(CacheNode<K, V> node) {
+        return activeReads.computeIfAbsent(node, n -> new AtomicInteger());
+    }
+
+    private void write(K key, V value) {
+        if (writeBehind != null) {
+            writeBehind.enqueue(key, value);
+        } else {
+            database.put(key, value);
+        }
+    }
+
+    private CompletableFuture<V> load(K key, List<CacheNode<K, V>> replicas, Executor executor) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) return existing;
+
+        long version = negativeCache == null ? 0 : negativeCache.version(key);
+        try {
+            executor.execute(() -> {
+                try {
+                    // A load that finished just before we registered may have filled the node.
+                    // peek, so this re-check isn't counted as a second miss.
+                    V value = replicas.get(0).peek(key);
+                    if (value == null) {
+                        value = loadFromDatabase(key);
+                        if (value != null) {
+                            for (CacheNode<K, V> replica : replicas) replica.put(key, value);
+                        } else if (negativeCache != null) {
+                            negativeCache.add(key, version);
+                        }
+                    }
+                    future.complete(value);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // nobody will run it; later reads must not wait on this future
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private V loadFromDatabase(K key) {
+        // an evicted key may still be waiting in the write-behind queue
+        if (writeBehind != null) {
+            V pending = writeBehind.pending(key);
+            if (pending != null) return pending;
+        }
+
+        long start = System.nanoTime();
+        try {
+            V value = database.get(key);
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (RuntimeException e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private Map<K, V> timedGetAll(List<K> keys) {
+        long start = System.nanoTime();
+        try {
+            Map<K, V> values = database.getAll(keys);
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            return values;
+        } catch (RuntimeException e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private Map<K, V> loadAllFromDatabase(List<K> keys) {
+        if (writeBehind == null) return timedGetAll(keys);
+
+        Map<K, V> loaded = new HashMap<>();
+        List<K> remaining = new ArrayList<>();
+        for (K key : keys) {
+            V pending = writeBehind.pending(key);
+            if (pending != null) {
+                loaded.put(key, pending);
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (!remaining.isEmpty()) loaded.putAll(timedGetAll(remaining));
+        return loaded;
+    }
+
+    private static class Move<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+        private final List<CacheNode<K, V>> oldReplicas;
+        private final List<CacheNode<K, V>> newReplicas;
+
+        Move(K key, V value, long expiresAt,
+             List<CacheNode<K, V>> oldReplicas, List<CacheNode<K, V>> newReplicas) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.oldReplicas = oldReplicas;
+            this.newReplicas = newReplicas;
+        }
+    }
+
+    public static class Builder<K, V> {
+        private List<CacheNode<K, V>> nodes;
+        private DistributionStrategy<K> strategy;
+        private Database<K, V> database;
+
+        private int replicationFactor = 1;
+        private ReadPolicy readPolicy = ReadPolicy.PRIMARY;
+        private Executor loadExecutor = ForkJoinPool.commonPool();
+        private WriteMode writeMode = WriteMode.WRITE_THROUGH;
+        private int writeBehindBatchSize = 100;
+        private long writeBehindIntervalMillis = 1_000;
+        private boolean recordStats;
+        private long refreshAfterWriteMillis;
+        private Clock clock = Clock.systemUTC();
+        private long negativeTtlMillis;
+        private int negativeCacheMaxSize = 10_000;
+
+        public Builder(List<CacheNode<K, V>> nodes, DistributionStrategy<K> strategy, Database<K, V> database) {
+            this.nodes = nodes;
+            this.strategy = strategy;
+            this.database = database;
+        }
+
+        public Builder<K, V> replicationFactor(int replicationFactor) { this.replicationFactor = replicationFactor; return this; }
+        public Builder<K, V> readPolicy(ReadPolicy readPolicy) { this.readPolicy = readPolicy; return this; }
+        public Builder<K, V> loadExecutor(Executor loadExecutor) { this.loadExecutor = loadExecutor; return this; }
+        public Builder<K, V> writeMode(WriteMode writeMode) { this.writeMode = writeMode; return this; }
+        public Builder<K, V> writeBehindBatchSize(int batchSize) { this.writeBehindBatchSize = batchSize; return this; }
+        public Builder<K, V> writeBehindIntervalMillis(long intervalMillis) { this.writeBehindIntervalMillis = intervalMillis; return this; }
+        // gives every node its own counters and times database loads
+        public Builder<K, V> recordStats() { this.recordStats = true; return this; }
+        // refreshes run on the load executor
+        public Builder<K, V> refreshAfterWriteMillis(long millis) { this.refreshAfterWriteMillis = millis; return this; }
+        // must match the nodes' clock, since write times come from there
+        public Builder<K, V> clock(Clock clock) { this.clock = clock; return this; }
+        // remembers database misses for ttlMillis, keeping at most maxSize keys
+        public Builder<K, V> negativeCaching(long ttlMillis, int maxSize) {
+            this.negativeTtlMillis = ttlMillis;
+            this.negativeCacheMaxSize = maxSize;
+            return this;
+        }
+
+        public DistributedCache<K, V> build() {
+            if (nodes == null || nodes.isEmpty()) {
+                throw new IllegalArgumentException("At least one cache node is required");
+            }
+            if (replicationFactor < 1) {
+                throw new IllegalArgumentException("Replication factor must be at least 1");
+            }
+            if (writeBehindBatchSize <= 0 || writeBehindIntervalMillis <= 0) {
+                throw new IllegalArgumentException("Write-behind batch size and interval must be positive");
+            }
+            if (negativeTtlMillis < 0 || (negativeTtlMillis > 0 && negativeCacheMaxSize <= 0)) {
+                throw new IllegalArgumentException("Negative cache TTL and size must be positive");
+            }
+            if (refreshAfterWriteMillis < 0) {
+                throw new IllegalArgumentException("Refresh interval cannot be negative");
+            }
+            return new DistributedCache<>(this);
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,18 @@ package Distributed_Cache;
 
 import java.util.*;
 
-public interface DistributionStrategy {
-    CacheNode getNode(String key, List<CacheNode> nodes);
-}
\ No newline at end of file
+public interface DistributionStrategy<K> {
+    <V> CacheNode<K, V> getNode(K key, List<CacheNode<K, V>> nodes);
+
+    // The owner followed by the next count - 1 distinct nodes, used for replicas.
+    default <V> List<CacheNode<K, V>> getNodes(K key, List<CacheNode<K, V>> nodes, int count) {
+        int wanted = Math.min(count, nodes.size());
+        int primary = nodes.indexOf(getNode(key, nodes));
+
+        List<CacheNode<K, V>> result = new ArrayList<>(wanted);
+        for (int i = 0; i < wanted; i++) {
+            result.add(nodes.get((primary + i) % nodes.size()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+// Successor to EvictionStrategy: sees the stored entry instead of just its key.
+public interface EntryEvictionStrategy<K, V> {
+    void onGet(CacheEntry<K, V> entry);
+    void onPut(CacheEntry<K, V> entry);
+    void onRemove(CacheEntry<K, V> entry);
+    K evict();
+
+    // Keys from next-to-evict to most recently used; empty if the strategy has no such order.
+    default List<K> evictionOrder() {
+        return Collections.emptyList();
+    }
+}
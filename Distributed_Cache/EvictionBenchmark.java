@@ -0,0 +1,69 @@
+package Distributed_Cache;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Compares EvictionByLRU with EvictionByLinkedLRU on a hit-heavy workload:
+ * ops/sec and bytes allocated per operation on the measuring thread.
+ */
+public class EvictionBenchmark {
+
+    private static final int CAPACITY = 100_000;
+    private static final int OPS = 20_000_000;
+
+    public static void main(String[] args) {
+        String[] keys = new String[CAPACITY * 2];
+        for (int i = 0; i < keys.length; i++) keys[i] = "key-" + i;
+
+        int[] trace = new int[1 << 20];
+        Random random = new Random(42);
+        for (int i = 0; i < trace.length; i++) {
+            // 90% of requests hit the resident half of the keyspace
+            trace[i] = random.nextInt(10) < 9 ? random.nextInt(CAPACITY) : random.nextInt(keys.length);
+        }
+
+        Supplier<CacheNode<String, String>> lru = () -> new LocalCacheNode<>(CAPACITY, new EvictionByLRU<>());
+        Supplier<CacheNode<String, String>> linked = () -> new LocalCacheNode<>(CAPACITY, new EvictionByLinkedLRU<>());
+
+        // warm-up rounds let the JIT settle before the measured round
+        for (int round = 0; round < 3; round++) {
+            run("EvictionByLRU", lru.get(), keys, trace, round == 2);
+            run("EvictionByLinkedLRU", linked.get(), keys, trace, round == 2);
+        }
+    }
+
+    private static void run(String name, CacheNode<String, String> node, String[] keys, int[] trace, boolean print) {
+        for (int i = 0; i < CAPACITY; i++) node.put(keys[i], keys[i]);
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        int hits = 0;
+        for (int i = 0; i < OPS; i++) {
+            String key = keys[trace[i & (trace.length - 1)]];
+            if (node.get(key) != null) {
+                hits++;
+            } else {
+                node.put(key, key);
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        if (print) {
+            System.out.printf("%-20s %,12.0f ops/s  %6.1f B/op  hit ratio %.3f%n",
+                    name, OPS * 1e9 / elapsed, (double) allocated / OPS, (double) hits / OPS);
+        }
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
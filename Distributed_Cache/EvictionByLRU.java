@@ -2,25 +2,35 @@ package Distributed_Cache;
 
 import java.util.*;
 
-public class EvictionByLRU implements EvictionStrategy{
-    private LinkedHashSet<String> order = new LinkedHashSet<>();
+public class EvictionByLRU<K> implements EvictionStrategy<K> {
+    private LinkedHashSet<K> order = new LinkedHashSet<>();
 
     @Override
-    public void onGet(String key) {
+    public void onGet(K key) {
         order.remove(key);
         order.add(key);
     }
 
     @Override
-    public void onPut(String key) {
+    public void onPut(K key) {
         order.remove(key);
         order.add(key);
     }
 
     @Override
-    public String evict() {
-        String oldest = order.iterator().next();
+    public void onRemove(K key) {
+        order.remove(key);
+    }
+
+    @Override
+    public K evict() {
+        K oldest = order.iterator().next();
         order.remove(oldest);
         return oldest;
     }
+
+    @Override
+    public List<K> evictionOrder() {
+        return new ArrayList<>(order);
+    }
 }
\ No newline at end of file
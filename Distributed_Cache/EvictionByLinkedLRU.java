@@ -0,0 +1,67 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+/**
+ * LRU over an intrusive doubly-linked list threaded through the cache entries.
+ * A hit is a pointer relink: no hashing and no allocation.
+ */
+public class EvictionByLinkedLRU<K, V> implements EntryEvictionStrategy<K, V> {
+    // sentinel: head.next is the least recently used entry, head.prev the most recent
+    private CacheEntry<K, V> head = new CacheEntry<>(null, null);
+
+    public EvictionByLinkedLRU() {
+        head.prev = head;
+        head.next = head;
+    }
+
+    @Override
+    public void onGet(CacheEntry<K, V> entry) {
+        moveToTail(entry);
+    }
+
+    @Override
+    public void onPut(CacheEntry<K, V> entry) {
+        moveToTail(entry);
+    }
+
+    @Override
+    public void onRemove(CacheEntry<K, V> entry) {
+        if (entry.next != null) unlink(entry);
+    }
+
+    @Override
+    public K evict() {
+        CacheEntry<K, V> oldest = head.next;
+        if (oldest == head) return null;
+
+        unlink(oldest);
+        return oldest.getKey();
+    }
+
+    @Override
+    public List<K> evictionOrder() {
+        List<K> keys = new ArrayList<>();
+        for (CacheEntry<K, V> entry = head.next; entry != head; entry = entry.next) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    private void moveToTail(CacheEntry<K, V> entry) {
+        if (entry == head.prev) return;
+        if (entry.next != null) unlink(entry);
+
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+
+    private void unlink(CacheEntry<K, V> entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = null;
+        entry.next = null;
+    }
+}
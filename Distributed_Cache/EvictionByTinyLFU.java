@@ -0,0 +1,122 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+/**
+ * W-TinyLFU: new keys enter a small LRU window. When the window overflows, its
+ * oldest key becomes a candidate for the main area (a segmented LRU split into
+ * probation and protected). The candidate only gets in if the frequency sketch
+ * says it is more popular than the main area's victim. Otherwise the candidate
+ * is evicted, so one-hit wonders never push out hot keys.
+ */
+public class EvictionByTinyLFU<K> implements EvictionStrategy<K> {
+
+    private FrequencySketch sketch;
+
+    private LinkedHashSet<K> window = new LinkedHashSet<>();
+    private LinkedHashSet<K> probation = new LinkedHashSet<>();
+    private LinkedHashSet<K> protectedKeys = new LinkedHashSet<>();
+
+    private int windowMax;
+    private int protectedMax;
+
+    // last key moved from the window into probation, still waiting for admission
+    private K candidate;
+
+    public EvictionByTinyLFU(int capacity) {
+        this(capacity, 0.01);
+    }
+
+    public EvictionByTinyLFU(int capacity, double windowRatio) {
+        this.sketch = new FrequencySketch(capacity);
+        this.windowMax = Math.max(1, (int) (capacity * windowRatio));
+        this.protectedMax = (int) ((capacity - windowMax) * 0.8);
+    }
+
+    @Override
+    public void onGet(K key) {
+        sketch.increment(key);
+
+        if (window.remove(key)) {
+            window.add(key);
+        } else if (probation.remove(key)) {
+            if (key.equals(candidate)) candidate = null;
+            promote(key);
+        } else if (protectedKeys.remove(key)) {
+            protectedKeys.add(key);
+        }
+    }
+
+    @Override
+    public void onPut(K key) {
+        if (window.contains(key) || probation.contains(key) || protectedKeys.contains(key)) {
+            onGet(key);
+            return;
+        }
+
+        sketch.increment(key);
+        window.add(key);
+
+        if (window.size() > windowMax) {
+            K oldest = window.iterator().next();
+            window.remove(oldest);
+            probation.add(oldest);
+            candidate = oldest;
+        }
+    }
+
+    @Override
+    public void onRemove(K key) {
+        window.remove(key);
+        probation.remove(key);
+        protectedKeys.remove(key);
+        if (key.equals(candidate)) candidate = null;
+    }
+
+    @Override
+    public K evict() {
+        K victim = firstOtherThan(probation, candidate);
+        if (victim == null) victim = firstOtherThan(protectedKeys, candidate);
+
+        K evicted;
+        if (candidate == null) {
+            evicted = victim != null ? victim : window.iterator().next();
+        } else if (victim == null) {
+            evicted = candidate;
+        } else {
+            // admission: the colder of the two leaves; ties favour the resident
+            evicted = sketch.frequency(candidate) > sketch.frequency(victim) ? victim : candidate;
+        }
+
+        window.remove(evicted);
+        probation.remove(evicted);
+        protectedKeys.remove(evicted);
+        candidate = null;
+        return evicted;
+    }
+
+    // Main area first (probation, then protected), then the window. Frequencies are not kept.
+    @Override
+    public List<K> evictionOrder() {
+        List<K> keys = new ArrayList<>(probation);
+        keys.addAll(protectedKeys);
+        keys.addAll(window);
+        return keys;
+    }
+
+    private void promote(K key) {
+        protectedKeys.add(key);
+        if (protectedKeys.size() > protectedMax) {
+            K demoted = protectedKeys.iterator().next();
+            protectedKeys.remove(demoted);
+            probation.add(demoted);
+        }
+    }
+
+    private static <K> K firstOtherThan(LinkedHashSet<K> keys, K excluded) {
+        for (K key : keys) {
+            if (!key.equals(excluded)) return key;
+        }
+        return null;
+    }
+}
@@ -1,7 +1,15 @@
 package Distributed_Cache;
 
-public interface EvictionStrategy{
-     void onGet(String key);
-    void onPut(String key);
-    String evict();
-}
\ No newline at end of file
+import java.util.*;
+
+public interface EvictionStrategy<K> {
+    void onGet(K key);
+    void onPut(K key);
+    void onRemove(K key);
+    K evict();
+
+    // Keys from next-to-evict to most recently used; empty if the strategy has no such order.
+    default List<K> evictionOrder() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,151 @@
+package Distributed_Cache;
+
+import java.lang.ref.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Drives a node with a hand-moved clock to check per-entry TTL, the node's
+ * default TTL, lazy expiry on read, timer-wheel reclamation without reads, that
+ * the wheel lets go of evicted entries, and that refresh-ahead keeps the TTL an
+ * entry was written with and never writes over a newer put.
+ */
+public class ExpiryCheck {
+
+    public static void main(String[] args) throws Exception {
+        ManualClock clock = new ManualClock();
+        CacheNode<String, String> node = new LocalCacheNode<>(100, new EvictionByLinkedLRU<>(), 60_000, clock);
+
+        node.put("short", "a", 5_000);
+        node.put("default", "b");
+        node.put("forever", "c", 0);
+
+        clock.advance(4_999);
+        Checks.check("before TTL", node.get("short"), "a");
+
+        clock.advance(1);
+        Checks.check("lazy expiry on read", node.get("short"), null);
+
+        clock.advance(60_000);
+        Checks.check("default TTL", node.get("default"), null);
+        Checks.check("no TTL", node.get("forever"), "c");
+
+        // never read again: only the sweep can reclaim these
+        for (int i = 0; i < 50; i++) node.put("sweep-" + i, "v", 10_000 + i * 1_000);
+        System.out.println("Size before sweep: " + node.size());
+
+        clock.advance(30_000);
+        node.cleanUp();
+        Checks.check("size after 30s sweep", node.size(), 30);
+
+        clock.advance(30_000);
+        node.cleanUp();
+        Checks.check("size after 60s sweep", node.size(), 1);
+
+        // re-putting moves the deadline; the old wheel slot must not expire it early
+        node.put("moved", "x", 2_000);
+        node.put("moved", "y", 20_000);
+        clock.advance(5_000);
+        node.cleanUp();
+        Checks.check("rescheduled entry survives", node.get("moved"), "y");
+
+        // evicted and removed entries must not stay reachable from the wheel until it comes round
+        CacheNode<String, String> small = new LocalCacheNode<>(1, new EvictionByLinkedLRU<>(), 60_000, clock);
+        String evicted = new String("evicted");
+        String removed = new String("removed");
+        WeakReference<String> evictedRef = new WeakReference<>(evicted);
+        WeakReference<String> removedRef = new WeakReference<>(removed);
+        small.put("a", evicted);
+        small.put("b", removed);
+        small.remove("b");
+        evicted = null;
+        removed = null;
+        for (int i = 0; i < 10 && (evictedRef.get() != null || removedRef.get() != null); i++) System.gc();
+        Checks.check("evicted entry released", evictedRef.get() == null);
+        Checks.check("removed entry released", removedRef.get() == null);
+
+        // refreshes run inline here, and the node's 60 s default must not replace the entry's own TTL
+        CacheNode<String, String> refreshed = new LocalCacheNode<>(100, new EvictionByLinkedLRU<>(), 60_000, clock);
+        DistributedCache<String, String> cache = new DistributedCache.Builder<>(
+                List.of(refreshed), new ConsistentHashDistribution<>(), new Database<>())
+                .refreshAfterWriteMillis(1_000)
+                .loadExecutor(Runnable::run)
+                .clock(clock)
+                .build();
+        cache.put("short", "a", 5_000);
+        cache.put("forever", "b", 0);
+        clock.advance(1_500);
+        cache.get("short");
+        cache.get("forever");
+        Checks.check("TTL left after a refresh", refreshed.getEntry("short").getExpiresAt() - clock.millis(), 5_000L);
+        Checks.check("no expiry after a refresh", refreshed.getEntry("forever").getExpiresAt(), 0L);
+        cache.close();
+
+        // the refresh reads v1, then a put of v2 lands before it writes back
+        CountDownLatch refreshRead = new CountDownLatch(1);
+        CountDownLatch putDone = new CountDownLatch(1);
+        Database<String, String> slowDb = new Database<>() {
+            @Override
+            public String get(String key) {
+                String value = super.get(key);
+                refreshRead.countDown();
+                try {
+                    putDone.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return value;
+            }
+        };
+        CacheNode<String, String> raced = new ConcurrentCacheNode<>(100, 1,
+                capacity -> new LocalCacheNode<>(capacity, new EvictionByLinkedLRU<>(), 0, clock));
+        ExecutorService refresher = Executors.newSingleThreadExecutor();
+        DistributedCache<String, String> racing = new DistributedCache.Builder<>(
+                List.of(raced), new ConsistentHashDistribution<>(), slowDb)
+                .refreshAfterWriteMillis(1_000)
+                .loadExecutor(refresher)
+                .clock(clock)
+                .build();
+        racing.put("k", "v1");
+        clock.advance(1_500);
+        racing.get("k");
+        refreshRead.await();
+        racing.put("k", "v2");
+        putDone.countDown();
+        refresher.shutdown();
+        refresher.awaitTermination(5, TimeUnit.SECONDS);
+        Checks.check("put during a refresh kept", raced.get("k"), "v2");
+        racing.close();
+        Checks.finish();
+    }
+
+    // also drives OffHeapCheck
+    static class ManualClock extends Clock {
+        private long millis = 1_000_000;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
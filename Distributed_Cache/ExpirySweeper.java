@@ -0,0 +1,31 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Periodically calls cleanUp() on every node so expired entries that are never
+ * read again still give their memory back. The nodes must be thread-safe
+ * (e.g. ConcurrentCacheNode), because cleanUp runs on the sweeper thread.
+ */
+public class ExpirySweeper implements AutoCloseable {
+
+    private ScheduledExecutorService scheduler;
+
+    public ExpirySweeper(List<? extends CacheNode<?, ?>> nodes, long intervalMillis) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> {
+            for (CacheNode<?, ?> node : nodes) node.cleanUp();
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package Distributed_Cache;
+
+/**
+ * Count-min sketch with 4-bit counters (16 per long) that estimates how often
+ * a key was seen recently. Every counter is halved once the number of
+ * increments reaches ten times the cache capacity, so old popularity fades.
+ */
+public class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private long[] table;
+    private int mask;
+    private int sampleSize;
+    private int additions;
+
+    public FrequencySketch(int capacity) {
+        int length = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    public int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = 15;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int slot = slot(hash, i);
+            frequency = Math.min(frequency, (int) ((table[slot & mask] >>> shift(slot)) & 15));
+        }
+        return frequency;
+    }
+
+    public void increment(Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int slot = slot(hash, i);
+            int index = slot & mask;
+            int shift = shift(slot);
+            if (((table[index] >>> shift) & 15) != 15) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static int slot(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h;
+    }
+
+    // which of the 16 nibbles in the long, taken from bits the index doesn't use
+    private static int shift(int slot) {
+        return (slot >>> 28) << 2;
+    }
+}
@@ -0,0 +1,65 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+/**
+ * Replays the same synthetic trace through LRU and W-TinyLFU nodes and prints
+ * the hit ratio of each. The trace is Zipfian popularity mixed with a tail of
+ * one-hit wonders that are requested once and never again.
+ */
+public class HitRatioSimulator {
+
+    public static void main(String[] args) {
+        int items = 100_000;
+        int requests = 2_000_000;
+        int capacity = 2_000;
+
+        String[] zipfOnly = trace(items, requests, 0.9, 0.0, 1);
+        String[] withTail = trace(items, requests, 0.9, 0.3, 1);
+
+        System.out.printf("%-32s %10s %10s%n", "Workload", "LRU", "W-TinyLFU");
+        report("Zipf(0.9)", zipfOnly, capacity);
+        report("Zipf(0.9) + 30% one-hit wonders", withTail, capacity);
+    }
+
+    private static void report(String name, String[] trace, int capacity) {
+        double lru = replay(new LocalCacheNode<>(capacity, new EvictionByLinkedLRU<>()), trace);
+        double tinyLfu = replay(new LocalCacheNode<>(capacity, new EvictionByTinyLFU<>(capacity)), trace);
+        System.out.printf("%-32s %10.3f %10.3f%n", name, lru, tinyLfu);
+    }
+
+    private static double replay(CacheNode<String, String> node, String[] trace) {
+        int hits = 0;
+        for (String key : trace) {
+            if (node.get(key) != null) {
+                hits++;
+            } else {
+                node.put(key, key);
+            }
+        }
+        return (double) hits / trace.length;
+    }
+
+    private static String[] trace(int items, int requests, double skew, double oneHitRatio, long seed) {
+        double[] cdf = new double[items];
+        double sum = 0;
+        for (int i = 0; i < items; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+
+        Random random = new Random(seed);
+        String[] trace = new String[requests];
+        int unique = 0;
+        for (int i = 0; i < requests; i++) {
+            if (random.nextDouble() < oneHitRatio) {
+                trace[i] = "once-" + unique++;
+                continue;
+            }
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            if (index < 0) index = -index - 1;
+            trace[i] = "item-" + Math.min(index, items - 1);
+        }
+        return trace;
+    }
+}
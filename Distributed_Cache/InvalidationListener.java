@@ -0,0 +1,6 @@
+package Distributed_Cache;
+
+// Told about every key whose cached value changed, e.g. to clear it from near caches in other processes.
+public interface InvalidationListener<K> {
+    void invalidated(K key);
+}
@@ -0,0 +1,37 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+// Lets key-based EvictionStrategy implementations run inside LocalCacheNode.
+public class KeyEvictionAdapter<K, V> implements EntryEvictionStrategy<K, V> {
+    private EvictionStrategy<K> strategy;
+
+    public KeyEvictionAdapter(EvictionStrategy<K> strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    public void onGet(CacheEntry<K, V> entry) {
+        strategy.onGet(entry.getKey());
+    }
+
+    @Override
+    public void onPut(CacheEntry<K, V> entry) {
+        strategy.onPut(entry.getKey());
+    }
+
+    @Override
+    public void onRemove(CacheEntry<K, V> entry) {
+        strategy.onRemove(entry.getKey());
+    }
+
+    @Override
+    public K evict() {
+        return strategy.evict();
+    }
+
+    @Override
+    public List<K> evictionOrder() {
+        return strategy.evictionOrder();
+    }
+}
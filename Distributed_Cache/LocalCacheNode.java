@@ -0,0 +1,204 @@
+package Distributed_Cache;
+
+import java.time.*;
+import java.util.*;
+
+// Single-threaded node; share it across threads through ConcurrentCacheNode.
+public class LocalCacheNode<K, V> implements CacheNode<K, V> {
+    private int capacity;
+    private Map<K, CacheEntry<K, V>> map;
+    private EntryEvictionStrategy<K, V> evictionStrategy;
+
+    // second bound next to capacity: the summed weight of all entries
+    private long maxWeight;
+    private Weigher<K, V> weigher;
+    private long totalWeight;
+
+    private long defaultTtlMillis;
+    private Clock clock;
+    private TimerWheel<K, V> timerWheel;
+    private StatsCounter stats = StatsCounter.DISABLED;
+
+    public LocalCacheNode(int capacity, EvictionStrategy<K> evictionStrategy) {
+        this(capacity, new KeyEvictionAdapter<>(evictionStrategy));
+    }
+
+    public LocalCacheNode(int capacity, EntryEvictionStrategy<K, V> evictionStrategy) {
+        this(capacity, evictionStrategy, 0, Clock.systemUTC());
+    }
+
+    public LocalCacheNode(int capacity, EntryEvictionStrategy<K, V> evictionStrategy,
+                          long defaultTtlMillis, Clock clock) {
+        this(capacity, Long.MAX_VALUE, Weigher.singleton(), evictionStrategy, defaultTtlMillis, clock);
+    }
+
+    // Bounded by total weight (e.g. bytes) instead of entry count.
+    public LocalCacheNode(long maxWeight, Weigher<K, V> weigher, EntryEvictionStrategy<K, V> evictionStrategy) {
+        this(Integer.MAX_VALUE, maxWeight, weigher, evictionStrategy, 0, Clock.systemUTC());
+    }
+
+    public LocalCacheNode(int capacity, long maxWeight, Weigher<K, V> weigher,
+                          EntryEvictionStrategy<K, V> evictionStrategy, long defaultTtlMillis, Clock clock) {
+        this.capacity = capacity;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.map = new HashMap<>();
+        this.evictionStrategy = evictionStrategy;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.clock = clock;
+        this.timerWheel = new TimerWheel<>(512, 1000, clock.millis());
+    }
+
+    @Override
+    public V get(K key) {
+        CacheEntry<K, V> entry = lookup(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Override
+    public CacheEntry<K, V> getEntry(K key) {
+        CacheEntry<K, V> entry = lookup(key);
+        return entry == null ? null : entry.copy();
+    }
+
+    @Override
+    public V peek(K key) {
+        CacheEntry<K, V> entry = map.get(key);
+        return entry == null || entry.isExpired(clock.millis()) ? null : entry.getValue();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, defaultTtlMillis);
+    }
+
+    @Override
+    public void put(K key, V value, long ttlMillis) {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight + " for key " + key);
+        }
+        if (weight > maxWeight) {
+            // could never fit; drop any older value instead of flushing the whole node for it
+            remove(key);
+            return;
+        }
+
+        long now = clock.millis();
+        long expiresAt = ttlMillis > 0 ? now + ttlMillis : 0;
+        CacheEntry<K, V> entry = map.get(key);
+
+        if (entry != null) {
+            long previous = entry.getExpiresAt();
+            totalWeight += weight - entry.getWeight();
+            entry.setValue(value);
+            entry.setWeight(weight);
+            entry.setExpiresAt(expiresAt);
+            entry.setWriteTime(now);
+            if (expiresAt == 0) {
+                timerWheel.unschedule(entry);
+            } else if (previous == 0 || !timerWheel.sameBucket(previous, expiresAt)) {
+                timerWheel.schedule(entry);
+            }
+            evictionStrategy.onPut(entry);
+        } else {
+            entry = new CacheEntry<>(key, value);
+            entry.setWeight(weight);
+            entry.setExpiresAt(expiresAt);
+            entry.setWriteTime(now);
+            map.put(key, entry);
+            totalWeight += weight;
+            if (expiresAt != 0) timerWheel.schedule(entry);
+            evictionStrategy.onPut(entry);
+        }
+
+        // The newcomer is already known to the strategy, so an admission policy
+        // can decline it (return its key) instead of evicting a hotter resident.
+        while (map.size() > capacity || totalWeight > maxWeight) {
+            K evictKey = evictionStrategy.evict();
+            if (evictKey == null) break;
+            discard(map.remove(evictKey));
+            stats.recordEviction();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        CacheEntry<K, V> entry = map.remove(key);
+        if (entry == null) return;
+
+        evictionStrategy.onRemove(entry);
+        discard(entry);
+    }
+
+    @Override
+    public void cleanUp() {
+        timerWheel.advance(clock.millis(), this::expire);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    public long weightedSize() {
+        return totalWeight;
+    }
+
+    @Override
+    public void forEachEntry(CacheEntryVisitor<K, V> visitor) {
+        long now = clock.millis();
+        List<K> order = evictionStrategy.evictionOrder();
+
+        // strategies without a recency order fall back to map order
+        Iterable<K> keys = order.size() == map.size() ? order : new ArrayList<>(map.keySet());
+        for (K key : keys) {
+            CacheEntry<K, V> entry = map.get(key);
+            if (entry != null && !entry.isExpired(now)) {
+                visitor.visit(key, entry.getValue(), entry.getExpiresAt());
+            }
+        }
+    }
+
+    @Override
+    public StatsCounter stats() {
+        return stats;
+    }
+
+    @Override
+    public void setStatsCounter(StatsCounter stats) {
+        this.stats = stats;
+    }
+
+    private CacheEntry<K, V> lookup(K key) {
+        CacheEntry<K, V> entry = map.get(key);
+        if (entry == null) {
+            stats.recordMiss();
+            return null;
+        }
+
+        if (entry.isExpired(clock.millis())) {
+            stats.recordMiss();
+            expire(entry);
+            return null;
+        }
+
+        stats.recordHit();
+        evictionStrategy.onGet(entry);
+        return entry;
+    }
+
+    private void expire(CacheEntry<K, V> entry) {
+        map.remove(entry.getKey());
+        evictionStrategy.onRemove(entry);
+        discard(entry);
+        stats.recordEviction();
+    }
+
+    // Gives back the entry's weight and takes it off the timer wheel, so nothing holds on to it.
+    private void discard(CacheEntry<K, V> entry) {
+        if (entry == null) return;
+        totalWeight -= entry.getWeight();
+        timerWheel.unschedule(entry);
+    }
+}
@@ -0,0 +1,123 @@
+package Distributed_Cache;
+
+import java.lang.management.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Replays the same random operations on a LongCacheNode and on a
+ * LocalCacheNode<Long, String> with LRU, checks they agree, then compares
+ * get throughput and allocation: get(long) against the boxed get(Long).
+ * Also checks TTL and that cleanUp() reclaims expired entries over several calls.
+ */
+public class LongCacheCheck {
+
+    public static void main(String[] args) {
+        int capacity = 1_000;
+        LongCacheNode<String> primitive = new LongCacheNode<>(capacity);
+        LocalCacheNode<Long, String> boxed = new LocalCacheNode<>(capacity, new EvictionByLinkedLRU<>());
+
+        Random random = new Random(42);
+        int mismatches = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            long key = random.nextInt(3_000);
+            int op = random.nextInt(10);
+            if (op < 6) {
+                if (!Objects.equals(primitive.get(key), boxed.get(key))) mismatches++;
+            } else if (op < 9) {
+                primitive.put(key, "v" + i);
+                boxed.put(key, "v" + i);
+            } else {
+                primitive.remove(key);
+                boxed.remove(key);
+            }
+        }
+        Checks.check("mismatches against LocalCacheNode", mismatches, 0);
+        Checks.check("size against LocalCacheNode", primitive.size(), boxed.size());
+
+        ManualClock clock = new ManualClock();
+        LongCacheNode<String> expiring = new LongCacheNode<>(10, 1_000, clock);
+        expiring.put(1L, "short", 100);
+        expiring.put(2L, "default");
+        clock.advance(500);
+        Checks.check("per-entry TTL after 500ms", expiring.get(1L), null);
+        Checks.check("default TTL after 500ms", expiring.get(2L), "default");
+
+        // cleanUp() checks a stretch of the table per call, not every entry
+        LongCacheNode<String> swept = new LongCacheNode<>(20_000, 1_000, clock);
+        for (long k = 0; k < 10_000; k++) swept.put(k, "v");
+        clock.advance(1_000);
+        swept.cleanUp();
+        int afterOne = swept.size();
+        for (int i = 0; i < 16; i++) swept.cleanUp();
+        System.out.println("Expired entries left after one cleanUp: " + afterOne);
+        Checks.check("one cleanUp only visits part of the table", afterOne > 0 && afterOne < 10_000);
+        Checks.check("expired entries left after 17 cleanUps", swept.size(), 0);
+
+        int keys = 100_000;
+        LongCacheNode<String> longNode = new LongCacheNode<>(keys);
+        LocalCacheNode<Long, String> localNode = new LocalCacheNode<>(keys, new EvictionByLinkedLRU<>());
+        for (long k = 0; k < keys; k++) {
+            longNode.put(k, "value");
+            localNode.put(k, "value");
+        }
+
+        // random order, so neither table gets the locality of sequential keys
+        long[] order = new long[keys];
+        for (int i = 0; i < keys; i++) order[i] = random.nextInt(keys);
+
+        for (int round = 0; round < 3; round++) {
+            measure("LongCacheNode.get(long)", keys, () -> {
+                for (long k : order) longNode.get(k);
+            });
+            measure("LocalCacheNode.get(Long)", keys, () -> {
+                for (long k : order) localNode.get(k);
+            });
+        }
+        Checks.finish();
+    }
+
+    private static void measure(String name, int keys, Runnable pass) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        int passes = 20;
+
+        long bytes = threads.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+        for (int i = 0; i < passes; i++) pass.run();
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(id) - bytes;
+
+        long ops = (long) passes * keys;
+        System.out.printf("%-26s %,12.0f gets/s %6.1f bytes/get%n", name, ops * 1e9 / elapsed, (double) bytes / ops);
+    }
+
+    private static class ManualClock extends Clock {
+        private long millis = 1_000_000;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
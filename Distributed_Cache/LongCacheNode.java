@@ -0,0 +1,279 @@
+package Distributed_Cache;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Node specialised for long keys. Keys live in a primitive open-addressing
+ * table, so get(long), put(long, ...) and remove(long) never box; the
+ * CacheNode<Long, V> methods unbox and delegate for use inside a
+ * DistributedCache. LRU links, expiry and write times are parallel primitive
+ * arrays, as in OffHeapCacheNode.
+ * Single-threaded like LocalCacheNode; wrap it in ConcurrentCacheNode to share it.
+ */
+public class LongCacheNode<V> implements CacheNode<Long, V> {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte DELETED = 2;
+    private static final int NONE = -1;
+    // table slots one cleanUp() call looks at
+    private static final int CLEANUP_BATCH = 4_096;
+
+    private int capacity;
+
+    private long[] keys;
+    private Object[] values;
+    private byte[] states;
+    private long[] expiresAt;
+    private long[] writeTimes;
+    private int[] prev;
+    private int[] next;
+    private int mask;
+    private int size;
+    private int tombstones;
+    // least and most recently used slots
+    private int head = NONE;
+    private int tail = NONE;
+    // where the next cleanUp() resumes its walk over the table
+    private int cleanUpCursor;
+
+    private long defaultTtlMillis;
+    private Clock clock;
+    private StatsCounter stats = StatsCounter.DISABLED;
+
+    public LongCacheNode(int capacity) {
+        this(capacity, 0, Clock.systemUTC());
+    }
+
+    public LongCacheNode(int capacity, long defaultTtlMillis, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.clock = clock;
+        allocate(Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) << 1);
+    }
+
+    public V get(long key) {
+        int slot = lookup(key);
+        return slot == NONE ? null : value(slot);
+    }
+
+    public void put(long key, V value) {
+        put(key, value, defaultTtlMillis);
+    }
+
+    public void put(long key, V value, long ttlMillis) {
+        long now = clock.millis();
+        int slot = find(key);
+        if (slot == NONE) {
+            if (size >= capacity) evict(head);
+            slot = insert(key);
+        } else {
+            unlink(slot);
+        }
+
+        values[slot] = value;
+        expiresAt[slot] = ttlMillis > 0 ? now + ttlMillis : 0;
+        writeTimes[slot] = now;
+        linkAtTail(slot);
+    }
+
+    public void remove(long key) {
+        int slot = find(key);
+        if (slot != NONE) removeSlot(slot);
+    }
+
+    @Override
+    public V get(Long key) {
+        return get(key.longValue());
+    }
+
+    @Override
+    public CacheEntry<Long, V> getEntry(Long key) {
+        int slot = lookup(key);
+        if (slot == NONE) return null;
+
+        CacheEntry<Long, V> entry = new CacheEntry<>(key, value(slot));
+        entry.setExpiresAt(expiresAt[slot]);
+        entry.setWriteTime(writeTimes[slot]);
+        return entry;
+    }
+
+    @Override
+    public V peek(Long key) {
+        int slot = find(key);
+        return slot == NONE || isExpired(slot, clock.millis()) ? null : value(slot);
+    }
+
+    @Override
+    public void put(Long key, V value) {
+        put(key.longValue(), value, defaultTtlMillis);
+    }
+
+    @Override
+    public void put(Long key, V value, long ttlMillis) {
+        put(key.longValue(), value, ttlMillis);
+    }
+
+    @Override
+    public void remove(Long key) {
+        remove(key.longValue());
+    }
+
+    // Checks the next CLEANUP_BATCH table slots, so a full pass takes several calls on a big table.
+    @Override
+    public void cleanUp() {
+        long now = clock.millis();
+        for (int i = 0; i < Math.min(CLEANUP_BATCH, mask + 1); i++) {
+            int slot = cleanUpCursor;
+            cleanUpCursor = (cleanUpCursor + 1) & mask;
+            if (states[slot] == FULL && isExpired(slot, now)) evict(slot);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEachEntry(CacheEntryVisitor<Long, V> visitor) {
+        long now = clock.millis();
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            if (!isExpired(slot, now)) visitor.visit(keys[slot], value(slot), expiresAt[slot]);
+        }
+    }
+
+    @Override
+    public StatsCounter stats() {
+        return stats;
+    }
+
+    @Override
+    public void setStatsCounter(StatsCounter stats) {
+        this.stats = stats;
+    }
+
+    // Finds a live slot and records the hit or miss; expired entries are dropped on the way.
+    private int lookup(long key) {
+        int slot = find(key);
+        if (slot == NONE) {
+            stats.recordMiss();
+            return NONE;
+        }
+        if (isExpired(slot, clock.millis())) {
+            stats.recordMiss();
+            stats.recordEviction();
+            removeSlot(slot);
+            return NONE;
+        }
+
+        stats.recordHit();
+        if (slot != tail) {
+            unlink(slot);
+            linkAtTail(slot);
+        }
+        return slot;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return expiresAt[slot] != 0 && now >= expiresAt[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return (V) values[slot];
+    }
+
+    private int find(long key) {
+        for (int i = spread(key) & mask; ; i = (i + 1) & mask) {
+            if (states[i] == EMPTY) return NONE;
+            if (states[i] == FULL && keys[i] == key) return i;
+        }
+    }
+
+    // caller has already checked that key is absent
+    private int insert(long key) {
+        if (size + tombstones >= (mask + 1) * 3 / 4) rebuild();
+
+        int i = spread(key) & mask;
+        while (states[i] == FULL) i = (i + 1) & mask;
+
+        if (states[i] == DELETED) tombstones--;
+        states[i] = FULL;
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    private void evict(int slot) {
+        removeSlot(slot);
+        stats.recordEviction();
+    }
+
+    private void removeSlot(int slot) {
+        unlink(slot);
+        states[slot] = DELETED;
+        values[slot] = null;
+        size--;
+        tombstones++;
+    }
+
+    // Re-inserts the live entries in LRU order, dropping every tombstone.
+    private void rebuild() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] oldExpiresAt = expiresAt;
+        long[] oldWriteTimes = writeTimes;
+        int[] oldNext = next;
+        int oldHead = head;
+
+        allocate(oldKeys.length);
+        for (int slot = oldHead; slot != NONE; slot = oldNext[slot]) {
+            int i = insert(oldKeys[slot]);
+            values[i] = oldValues[slot];
+            expiresAt[i] = oldExpiresAt[slot];
+            writeTimes[i] = oldWriteTimes[slot];
+            linkAtTail(i);
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+        states = new byte[tableSize];
+        expiresAt = new long[tableSize];
+        writeTimes = new long[tableSize];
+        prev = new int[tableSize];
+        next = new int[tableSize];
+        mask = tableSize - 1;
+        head = NONE;
+        tail = NONE;
+        size = 0;
+        tombstones = 0;
+        cleanUpCursor = 0;
+    }
+
+    private void linkAtTail(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail != NONE) next[tail] = slot;
+        tail = slot;
+        if (head == NONE) head = slot;
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) next[prev[slot]] = next[slot];
+        else head = next[slot];
+        if (next[slot] != NONE) prev[next[slot]] = prev[slot];
+        else tail = prev[slot];
+    }
+
+    // Fibonacci hash of the whole 64 bits, taking the well-mixed top half
+    private static int spread(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
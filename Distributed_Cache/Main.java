@@ -5,15 +5,15 @@ import java.util.*;
 public class Main {
     public static void main(String[] args) {
 
-        Database db = new Database();
+        Database<String, String> db = new Database<>();
 
-        List<CacheNode> nodes = new ArrayList<>();
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
         for (int i = 0; i < 3; i++) {
-            nodes.add(new CacheNode(2, new EvictionByLRU()));
+            nodes.add(new LocalCacheNode<>(2, new EvictionByLRU<>()));
         }
 
-        DistributedCache cache =
-                new DistributedCache(nodes, new ModuloDistribution(), db);
+        DistributedCache<String, String> cache =
+                new DistributedCache<>(nodes, new ModuloDistribution<>(), db);
 
         cache.put("1", "Mathematics");
         cache.put("2", "Science");
@@ -2,10 +2,11 @@ package Distributed_Cache;
 
 import java.util.*;
 
-public class ModuloDistribution implements DistributionStrategy {
+public class ModuloDistribution<K> implements DistributionStrategy<K> {
     @Override
-    public CacheNode getNode(String key, List<CacheNode> nodes) {
-        int index = Math.abs(key.hashCode()) % nodes.size();
+    public <V> CacheNode<K, V> getNode(K key, List<CacheNode<K, V>> nodes) {
+        // floorMod: Math.abs(Integer.MIN_VALUE) is still negative
+        int index = Math.floorMod(key.hashCode(), nodes.size());
         return nodes.get(index);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package Distributed_Cache;
+
+import java.util.*;
+
+/**
+ * Times a page-render style lookup of 200 keys, once as a loop of single gets
+ * and once as one getAll. The database charges 1 ms per round trip, so a batch
+ * of misses costs one round trip instead of one per key.
+ */
+public class MultiGetBenchmark {
+
+    public static void main(String[] args) {
+        Database<String, String> db = new Database<>() {
+            @Override
+            public String get(String key) {
+                roundTrip();
+                return "value-" + key;
+            }
+
+            @Override
+            public Map<String, String> getAll(Collection<String> keys) {
+                roundTrip();
+                Map<String, String> result = new HashMap<>();
+                for (String key : keys) result.put(key, "value-" + key);
+                return result;
+            }
+        };
+
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(new ConcurrentCacheNode<>(100_000, 16, EvictionByLRU::new));
+        }
+        DistributedCache<String, String> cache = new DistributedCache<>(nodes, new ConsistentHashDistribution<>(), db);
+
+        Random random = new Random(7);
+        int pages = 200;
+        int keysPerPage = 200;
+
+        // keys 0..49,999 are warm; each page asks for 5% unseen keys
+        for (int i = 0; i < 50_000; i++) cache.put("key-" + i, "value-key-" + i);
+
+        List<List<String>> loopPages = new ArrayList<>();
+        List<List<String>> batchPages = new ArrayList<>();
+        int cold = 50_000;
+        for (int p = 0; p < pages; p++) {
+            List<String> loopKeys = new ArrayList<>();
+            List<String> batchKeys = new ArrayList<>();
+            for (int k = 0; k < keysPerPage; k++) {
+                boolean miss = random.nextInt(100) < 5;
+                loopKeys.add("key-" + (miss ? cold++ : random.nextInt(50_000)));
+                batchKeys.add("key-" + (miss ? cold++ : random.nextInt(50_000)));
+            }
+            loopPages.add(loopKeys);
+            batchPages.add(batchKeys);
+        }
+
+        long start = System.nanoTime();
+        for (List<String> page : loopPages) {
+            for (String key : page) cache.get(key);
+        }
+        long loopNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (List<String> page : batchPages) cache.getAll(page);
+        long batchNanos = System.nanoTime() - start;
+
+        System.out.printf("Loop of get:  %8.2f ms/page%n", loopNanos / 1e6 / pages);
+        System.out.printf("getAll:       %8.2f ms/page%n", batchNanos / 1e6 / pages);
+        System.out.printf("Speed-up:     %8.1fx%n", (double) loopNanos / batchNanos);
+    }
+
+    private static void roundTrip() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
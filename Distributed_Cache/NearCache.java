@@ -0,0 +1,102 @@
+package Distributed_Cache;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Small process-local cache (L1) in front of a DistributedCache. Hot reads are
+ * served from the local node without routing; misses go to the distributed
+ * cache and are kept locally until the local node evicts or expires them.
+ * Puts through any NearCache on the same DistributedCache clear the key here
+ * too; other processes can be wired in through an InvalidationListener that
+ * calls invalidate().
+ */
+public class NearCache<K, V> implements AutoCloseable {
+    private static final int STRIPES = 64;
+
+    private DistributedCache<K, V> cache;
+    // must be thread-safe, e.g. a ConcurrentCacheNode
+    private CacheNode<K, V> local;
+    private InvalidationListener<K> listener = this::invalidate;
+    // bumped on every invalidation, so a read that raced one doesn't keep its stale value
+    private AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    public NearCache(DistributedCache<K, V> cache, int capacity, long ttlMillis) {
+        this(cache, new ConcurrentCacheNode<>(capacity, 16,
+                cap -> new LocalCacheNode<>(cap, new KeyEvictionAdapter<>(new EvictionByTinyLFU<>(cap)),
+                        ttlMillis, Clock.systemUTC())));
+    }
+
+    public NearCache(DistributedCache<K, V> cache, CacheNode<K, V> local) {
+        this.cache = cache;
+        this.local = local;
+        cache.addInvalidationListener(listener);
+    }
+
+    public V get(K key) {
+        V value = local.get(key);
+        if (value != null) return value;
+
+        long version = versions.get(stripe(key));
+        value = cache.get(key);
+        if (value != null) keepLocally(key, value, version);
+        return value;
+    }
+
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> result = new HashMap<>(local.getAll(keys));
+        if (result.size() == keys.size()) return result;
+
+        List<K> misses = new ArrayList<>();
+        long[] missVersions = new long[keys.size()];
+        for (K key : keys) {
+            if (result.containsKey(key)) continue;
+            missVersions[misses.size()] = versions.get(stripe(key));
+            misses.add(key);
+        }
+
+        Map<K, V> loaded = cache.getAll(misses);
+        for (int i = 0; i < misses.size(); i++) {
+            V value = loaded.get(misses.get(i));
+            if (value != null) keepLocally(misses.get(i), value, missVersions[i]);
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    // The distributed cache notifies every registered near cache, this one included.
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    public void put(K key, V value, long ttlMillis) {
+        cache.put(key, value, ttlMillis);
+    }
+
+    // Drops the local copy only; the distributed cache is untouched.
+    public void invalidate(K key) {
+        versions.incrementAndGet(stripe(key));
+        local.remove(key);
+    }
+
+    public CacheNode<K, V> getLocal() {
+        return local;
+    }
+
+    // Stops listening for invalidations; the distributed cache stays open.
+    @Override
+    public void close() {
+        cache.removeInvalidationListener(listener);
+    }
+
+    private void keepLocally(K key, V value, long version) {
+        local.put(key, value);
+        // checked after the put: an invalidation either sees the new copy or changed the version
+        if (versions.get(stripe(key)) != version) local.remove(key);
+    }
+
+    private static int stripe(Object key) {
+        return (key.hashCode() * 0x9E3779B9) >>> 26;
+    }
+}
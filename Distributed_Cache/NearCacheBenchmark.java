@@ -0,0 +1,116 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * Replays a Zipf(0.99) read trace over 100,000 keys from several threads,
+ * once straight against DistributedCache and once through a 2,000-entry
+ * NearCache, and reports throughput and the L1 hit rate. Runs with in-process
+ * nodes and again with a simulated 50 us network hop per node read. Also
+ * checks that a put through one near cache clears the key from another.
+ */
+public class NearCacheBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int KEYS = 100_000;
+    private static final long ROUND_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        Database<String, String> db = new Database<>();
+        for (int i = 0; i < KEYS; i++) db.put("item-" + i, "value-" + i);
+        String[] trace = zipfTrace(1 << 20, 0.99);
+
+        DistributedCache<String, String> cache = null;
+        NearCache<String, String> near = null;
+        for (long hopNanos : new long[]{0, 50_000}) {
+            cache = build(db, hopNanos);
+            near = new NearCache<>(cache, 2_000, 60_000);
+            near.getLocal().setStatsCounter(new ConcurrentStatsCounter());
+            for (int i = 0; i < KEYS; i++) cache.get("item-" + i);
+
+            double directTotal = 0;
+            double nearTotal = 0;
+            for (int round = 0; round < 6; round++) {
+                double direct = run(cache::get, trace);
+                double viaNear = run(near::get, trace);
+                // first two rounds are warm-up
+                if (round >= 2) {
+                    directTotal += direct;
+                    nearTotal += viaNear;
+                }
+            }
+            System.out.println(hopNanos == 0 ? "In-process nodes:" : "Nodes behind a " + hopNanos / 1_000 + " us hop:");
+            System.out.printf("  DistributedCache.get: %,12.0f ops/s%n", directTotal / 4);
+            System.out.printf("  NearCache.get:        %,12.0f ops/s%n", nearTotal / 4);
+            System.out.printf("  L1 hit rate:          %12.3f%n", near.getLocal().stats().snapshot().hitRate());
+        }
+
+        NearCache<String, String> other = new NearCache<>(cache, 2_000, 60_000);
+        Set<String> notified = ConcurrentHashMap.newKeySet();
+        cache.addInvalidationListener(notified::add);
+        other.get("item-0");
+        near.put("item-0", "changed");
+        System.out.println("Other near cache sees: " + other.get("item-0") + " (expected changed)");
+        System.out.println("Listener notified: " + notified.contains("item-0"));
+    }
+
+    private static DistributedCache<String, String> build(Database<String, String> db, long hopNanos) {
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(new ConcurrentCacheNode<>(KEYS, 16, cap -> new LocalCacheNode<>(cap, new EvictionByLinkedLRU<>())) {
+                @Override
+                public String get(String key) {
+                    if (hopNanos > 0) LockSupport.parkNanos(hopNanos);
+                    return super.get(key);
+                }
+            });
+        }
+        return new DistributedCache<>(nodes, new ConsistentHashDistribution<>(), db);
+    }
+
+    private static double run(Function<String, String> reader, String[] trace) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicLong ops = new AtomicLong();
+        long deadline = System.nanoTime() + ROUND_MILLIS * 1_000_000;
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * (trace.length / THREADS);
+            pool.execute(() -> {
+                long done = 0;
+                int i = offset;
+                while (System.nanoTime() < deadline) {
+                    for (int j = 0; j < 1_000; j++) {
+                        reader.apply(trace[i]);
+                        i = (i + 1) & (trace.length - 1);
+                    }
+                    done += 1_000;
+                }
+                ops.addAndGet(done);
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        return ops.get() * 1_000.0 / ROUND_MILLIS;
+    }
+
+    private static String[] zipfTrace(int length, double skew) {
+        double[] cdf = new double[KEYS];
+        double sum = 0;
+        for (int i = 0; i < KEYS; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+
+        Random random = new Random(1);
+        String[] trace = new String[length];
+        for (int i = 0; i < length; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            if (index < 0) index = -index - 1;
+            trace[i] = "item-" + Math.min(index, KEYS - 1);
+        }
+        return trace;
+    }
+}
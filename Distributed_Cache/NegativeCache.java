@@ -0,0 +1,111 @@
+package Distributed_Cache;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Remembers keys the database did not have, so repeated lookups of missing
+ * keys stop at the cache. Only the key and its expiry time are kept, never a
+ * value entry. Split into locked segments like ConcurrentCacheNode; each
+ * segment drops its oldest keys first, which with a single TTL is also
+ * expiry order.
+ */
+public class NegativeCache<K> {
+
+    private long ttlMillis;
+    private Clock clock;
+    private Segment<K>[] segments;
+    private int shift;
+
+    public NegativeCache(int maxSize, long ttlMillis) {
+        this(maxSize, 16, ttlMillis, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    public NegativeCache(int maxSize, int segmentCount, long ttlMillis, Clock clock) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Negative cache size and TTL must be positive");
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(segmentCount, maxSize)));
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.segments = (Segment<K>[]) new Segment<?>[count];
+        this.shift = 32 - Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    public boolean contains(K key) {
+        Segment<K> segment = segmentFor(key);
+        synchronized (segment) {
+            Long expiresAt = segment.expiryByKey.get(key);
+            if (expiresAt == null) return false;
+            if (clock.millis() >= expiresAt) {
+                segment.expiryByKey.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // Taken before a database read; add() ignores the miss if the key was invalidated since.
+    public long version(K key) {
+        Segment<K> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.version;
+        }
+    }
+
+    public void add(K key, long version) {
+        Segment<K> segment = segmentFor(key);
+        synchronized (segment) {
+            // a put in this segment raced the load, so the miss may already be stale
+            if (segment.version != version) return;
+
+            long now = clock.millis();
+            segment.expiryByKey.remove(key);
+            segment.expiryByKey.put(key, now + ttlMillis);
+
+            Iterator<Long> oldest = segment.expiryByKey.values().iterator();
+            while (oldest.hasNext()) {
+                long expiresAt = oldest.next();
+                if (segment.expiryByKey.size() <= segment.maxSize && now < expiresAt) break;
+                oldest.remove();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.version++;
+            segment.expiryByKey.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K> segment : segments) {
+            synchronized (segment) {
+                size += segment.expiryByKey.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment<K> segmentFor(K key) {
+        return segments.length == 1 ? segments[0] : segments[(key.hashCode() * 0x9E3779B9) >>> shift];
+    }
+
+    private static class Segment<K> {
+        private final int maxSize;
+        // insertion order, so the head is always the oldest key
+        private final LinkedHashMap<K, Long> expiryByKey = new LinkedHashMap<>();
+        private long version;
+
+        Segment(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
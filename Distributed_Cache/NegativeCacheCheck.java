@@ -0,0 +1,72 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Scans ids that don't exist and checks that only the first pass reaches the
+ * database, that a put makes the key visible at once, that misses are forgotten
+ * after their TTL and that the negative cache stays within its size limit.
+ */
+public class NegativeCacheCheck {
+
+    public static void main(String[] args) throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Database<String, String> db = new Database<>() {
+            @Override
+            public String get(String key) {
+                loads.incrementAndGet();
+                return super.get(key);
+            }
+
+            @Override
+            public Map<String, String> getAll(Collection<String> keys) {
+                loads.addAndGet(keys.size());
+                return super.getAll(keys);
+            }
+        };
+
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new ConcurrentCacheNode<>(1_000, 4, EvictionByLRU::new));
+        }
+        DistributedCache<String, String> cache = new DistributedCache.Builder<>(nodes, new ConsistentHashDistribution<>(), db)
+                .negativeCaching(300, 500)
+                .recordStats()
+                .build();
+
+        for (int i = 0; i < 200; i++) cache.get("missing-" + i);
+        int firstPass = loads.get();
+        for (int i = 0; i < 200; i++) cache.get("missing-" + i);
+        Checks.check("database reads, first scan", firstPass, 200);
+        Checks.check("database reads, second scan", loads.get() - firstPass, 0);
+        Checks.check("negative hits", cache.snapshot().getNegativeHitCount(), 200L);
+
+        cache.put("missing-5", "now here");
+        Checks.check("after put", cache.get("missing-5"), "now here");
+
+        List<String> batch = new ArrayList<>();
+        for (int i = 200; i < 300; i++) batch.add("missing-" + i);
+        cache.getAll(batch);
+        int beforeBatch = loads.get();
+        cache.getAll(batch);
+        Checks.check("database reads, repeated getAll", loads.get() - beforeBatch, 0);
+
+        Thread.sleep(400);
+        int beforeExpiry = loads.get();
+        cache.get("missing-7");
+        Checks.check("database reads after TTL", loads.get() - beforeExpiry, 1);
+
+        NegativeCache<String> bounded = new NegativeCache<>(100, 60_000);
+        for (int i = 0; i < 10_000; i++) bounded.add("k" + i, bounded.version("k" + i));
+        Checks.checkAtMost("bounded size", bounded.size(), 100);
+
+        long stale = bounded.version("raced");
+        bounded.invalidate("raced");
+        bounded.add("raced", stale);
+        Checks.check("miss cached across a racing put", bounded.contains("raced"), false);
+
+        System.out.println(cache.snapshot());
+        Checks.finish();
+    }
+}
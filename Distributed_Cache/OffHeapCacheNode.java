@@ -0,0 +1,374 @@
+package Distributed_Cache;
+
+import java.nio.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Node that keeps values outside the Java heap, written by a Serializer into
+ * direct ByteBuffer slabs. The heap only holds the index: an open-addressing table of
+ * keys next to primitive arrays with each entry's packed location (slab,
+ * offset, length) and its LRU links. That is no per-entry objects besides the
+ * key itself, so millions of entries give the GC almost nothing to trace.
+ * Each chunk is an 8-byte expiry time and an 8-byte write time followed by
+ * the value bytes. Besides the LRU list, every size class has its own recency
+ * list, so making room in a full class evicts that class's oldest entry at once.
+ * A class with nothing to evict takes over the slab of the least recently used entry.
+ * Single-threaded like LocalCacheNode; wrap it in ConcurrentCacheNode to share it.
+ */
+public class OffHeapCacheNode<K, V> implements CacheNode<K, V> {
+
+    private static final int HEADER = 16;
+    private static final int OFFSET_BITS = 24;
+    private static final int LENGTH_BITS = 20;
+    private static final int NONE = -1;
+    // marks a deleted slot so probe chains running through it stay intact
+    private static final Object TOMBSTONE = new Object();
+    // table slots one cleanUp() call looks at
+    private static final int CLEANUP_BATCH = 4_096;
+
+    private int capacity;
+    private SlabAllocator allocator;
+
+    private Object[] keys;
+    private long[] locations;
+    private int[] prev;
+    private int[] next;
+    // size class of each slot's chunk, and the per-class recency lists
+    private byte[] sizeClasses;
+    private int[] classPrev;
+    private int[] classNext;
+    private int[] classHead;
+    private int[] classTail;
+    private int mask;
+    private int size;
+    private int tombstones;
+    // least and most recently used slots
+    private int head = NONE;
+    private int tail = NONE;
+    // where the next cleanUp() resumes its walk over the table
+    private int cleanUpCursor;
+
+    private Serializer<V> serializer;
+    private long defaultTtlMillis;
+    private Clock clock;
+    private StatsCounter stats = StatsCounter.DISABLED;
+
+    public OffHeapCacheNode(int capacity, long maxBytes, Serializer<V> serializer) {
+        this(capacity, maxBytes, serializer, 0, Clock.systemUTC());
+    }
+
+    public OffHeapCacheNode(int capacity, long maxBytes, Serializer<V> serializer, long defaultTtlMillis, Clock clock) {
+        this.capacity = capacity;
+        this.serializer = serializer;
+        // at least 16 slabs so several size classes can coexist; at most 1 MB so
+        // offset and length fit in their packed fields
+        int slabSize = (int) Math.min(1 << 20, Math.max(64 << 10, Long.highestOneBit(maxBytes / 16)));
+        this.allocator = new SlabAllocator((int) Math.min(slabSize, maxBytes), maxBytes);
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.clock = clock;
+
+        this.classHead = new int[allocator.sizeClasses()];
+        this.classTail = new int[allocator.sizeClasses()];
+        allocate(Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) << 1);
+    }
+
+    @Override
+    public V get(K key) {
+        int slot = lookup(key);
+        return slot == NONE ? null : value(slot);
+    }
+
+    @Override
+    public CacheEntry<K, V> getEntry(K key) {
+        int slot = lookup(key);
+        if (slot == NONE) return null;
+
+        long address = address(locations[slot]);
+        ByteBuffer slab = allocator.slab(address);
+        int offset = SlabAllocator.offset(address);
+        CacheEntry<K, V> entry = new CacheEntry<>(key, value(slot));
+        entry.setExpiresAt(slab.getLong(offset));
+        entry.setWriteTime(slab.getLong(offset + 8));
+        return entry;
+    }
+
+    @Override
+    public V peek(K key) {
+        int slot = find(key);
+        if (slot == NONE) return null;
+        long address = address(locations[slot]);
+        long expiresAt = allocator.slab(address).getLong(SlabAllocator.offset(address));
+        return expiresAt != 0 && clock.millis() >= expiresAt ? null : value(slot);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, defaultTtlMillis);
+    }
+
+    @Override
+    public void put(K key, V value, long ttlMillis) {
+        byte[] bytes = serializer.serialize(value);
+        if (bytes.length + HEADER > allocator.maxChunkSize() || bytes.length >= 1 << LENGTH_BITS) {
+            throw new IllegalArgumentException("Value of " + bytes.length + " bytes is too large for this node");
+        }
+
+        // the old value goes only once the new one has a chunk
+        long address = allocateChunk(bytes.length + HEADER);
+        remove(key);
+        while (size >= capacity) evict(head);
+
+        ByteBuffer slab = allocator.slab(address);
+        int offset = SlabAllocator.offset(address);
+        long now = clock.millis();
+        slab.putLong(offset, ttlMillis > 0 ? now + ttlMillis : 0);
+        slab.putLong(offset + 8, now);
+        slab.put(offset + HEADER, bytes);
+
+        int slot = insert(key);
+        locations[slot] = pack(address, bytes.length);
+        linkAtTail(slot);
+    }
+
+    @Override
+    public void remove(K key) {
+        int slot = find(key);
+        if (slot != NONE) removeSlot(slot);
+    }
+
+    // Off-heap entries have no on-heap timer-wheel node to hang off, so each call checks the
+    // next CLEANUP_BATCH table slots instead, and a full pass takes several calls on a big table.
+    @Override
+    public void cleanUp() {
+        long now = clock.millis();
+        for (int i = 0; i < Math.min(CLEANUP_BATCH, mask + 1); i++) {
+            int slot = cleanUpCursor;
+            cleanUpCursor = (cleanUpCursor + 1) & mask;
+            if (keys[slot] == null || keys[slot] == TOMBSTONE) continue;
+
+            long address = address(locations[slot]);
+            long expiresAt = allocator.slab(address).getLong(SlabAllocator.offset(address));
+            if (expiresAt != 0 && now >= expiresAt) evict(slot);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEachEntry(CacheEntryVisitor<K, V> visitor) {
+        long now = clock.millis();
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            long location = locations[slot];
+            ByteBuffer slab = allocator.slab(address(location));
+            int offset = SlabAllocator.offset(address(location));
+
+            long expiresAt = slab.getLong(offset);
+            if (expiresAt != 0 && now >= expiresAt) continue;
+
+            visitor.visit(key(slot), value(slot), expiresAt);
+        }
+    }
+
+    // Finds a live slot and records the hit or miss; expired entries are dropped on the way.
+    private int lookup(K key) {
+        int slot = find(key);
+        if (slot == NONE) {
+            stats.recordMiss();
+            return NONE;
+        }
+
+        long address = address(locations[slot]);
+        long expiresAt = allocator.slab(address).getLong(SlabAllocator.offset(address));
+        if (expiresAt != 0 && clock.millis() >= expiresAt) {
+            stats.recordMiss();
+            stats.recordEviction();
+            removeSlot(slot);
+            return NONE;
+        }
+
+        stats.recordHit();
+        moveToTail(slot);
+        return slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(int slot) {
+        return (K) keys[slot];
+    }
+
+    private V value(int slot) {
+        long location = locations[slot];
+        byte[] bytes = new byte[length(location)];
+        allocator.slab(address(location)).get(SlabAllocator.offset(address(location)) + HEADER, bytes);
+        return serializer.deserialize(bytes);
+    }
+
+    @Override
+    public StatsCounter stats() {
+        return stats;
+    }
+
+    @Override
+    public void setStatsCounter(StatsCounter stats) {
+        this.stats = stats;
+    }
+
+    public long offHeapBytes() {
+        return allocator.allocatedBytes();
+    }
+
+    private int find(Object key) {
+        for (int i = spread(key.hashCode()) & mask; ; i = (i + 1) & mask) {
+            Object candidate = keys[i];
+            if (candidate == null) return NONE;
+            if (candidate != TOMBSTONE && candidate.equals(key)) return i;
+        }
+    }
+
+    // caller has already checked that key is absent
+    private int insert(Object key) {
+        if (size + tombstones >= (mask + 1) * 3 / 4) rebuild();
+
+        int i = spread(key.hashCode()) & mask;
+        while (keys[i] != null && keys[i] != TOMBSTONE) i = (i + 1) & mask;
+
+        if (keys[i] == TOMBSTONE) tombstones--;
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    // Out of slab memory, only a chunk of the same size class can be reused, so this evicts
+    // that class's least recently used entry. A class without entries takes back a whole slab.
+    private long allocateChunk(int chunkSize) {
+        int sizeClass = allocator.sizeClass(chunkSize);
+        long address;
+        while ((address = allocator.allocate(chunkSize)) < 0) {
+            int victim = classHead[sizeClass];
+            if (victim != NONE) evict(victim);
+            else reclaimSlab(sizeClass);
+        }
+        return address;
+    }
+
+    // Empties the slab holding the least recently used entry and hands it to sizeClass. With
+    // no entries at all every slab is free, so slab 0 will do. Walks the whole table, but only
+    // when a class first runs dry.
+    private void reclaimSlab(int sizeClass) {
+        int slab = head == NONE ? 0 : SlabAllocator.slabIndex(address(locations[head]));
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys[slot] != null && keys[slot] != TOMBSTONE
+                    && SlabAllocator.slabIndex(address(locations[slot])) == slab) {
+                evict(slot);
+            }
+        }
+        allocator.reassign(slab, sizeClass);
+    }
+
+    private void evict(int slot) {
+        removeSlot(slot);
+        stats.recordEviction();
+    }
+
+    private void removeSlot(int slot) {
+        unlink(slot);
+        allocator.free(address(locations[slot]), length(locations[slot]) + HEADER);
+        keys[slot] = TOMBSTONE;
+        size--;
+        tombstones++;
+    }
+
+    // Re-inserts the live entries in LRU order, dropping every tombstone.
+    private void rebuild() {
+        Object[] oldKeys = keys;
+        long[] oldLocations = locations;
+        int[] oldNext = next;
+        int oldHead = head;
+
+        allocate(oldKeys.length);
+        for (int slot = oldHead; slot != NONE; slot = oldNext[slot]) {
+            int i = insert(oldKeys[slot]);
+            locations[i] = oldLocations[slot];
+            linkAtTail(i);
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new Object[tableSize];
+        locations = new long[tableSize];
+        prev = new int[tableSize];
+        next = new int[tableSize];
+        sizeClasses = new byte[tableSize];
+        classPrev = new int[tableSize];
+        classNext = new int[tableSize];
+        Arrays.fill(classHead, NONE);
+        Arrays.fill(classTail, NONE);
+        mask = tableSize - 1;
+        head = NONE;
+        tail = NONE;
+        size = 0;
+        tombstones = 0;
+        cleanUpCursor = 0;
+    }
+
+    private void moveToTail(int slot) {
+        if (slot == tail) return;
+        unlink(slot);
+        linkAtTail(slot);
+    }
+
+    // caller has set the slot's location, which decides its size class
+    private void linkAtTail(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail != NONE) next[tail] = slot;
+        tail = slot;
+        if (head == NONE) head = slot;
+
+        int sizeClass = allocator.sizeClass(length(locations[slot]) + HEADER);
+        sizeClasses[slot] = (byte) sizeClass;
+        classPrev[slot] = classTail[sizeClass];
+        classNext[slot] = NONE;
+        if (classTail[sizeClass] != NONE) classNext[classTail[sizeClass]] = slot;
+        classTail[sizeClass] = slot;
+        if (classHead[sizeClass] == NONE) classHead[sizeClass] = slot;
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) next[prev[slot]] = next[slot];
+        else head = next[slot];
+        if (next[slot] != NONE) prev[next[slot]] = prev[slot];
+        else tail = prev[slot];
+
+        int sizeClass = sizeClasses[slot];
+        if (classPrev[slot] != NONE) classNext[classPrev[slot]] = classNext[slot];
+        else classHead[sizeClass] = classNext[slot];
+        if (classNext[slot] != NONE) classPrev[classNext[slot]] = classPrev[slot];
+        else classTail[sizeClass] = classPrev[slot];
+    }
+
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) * 0x9E3779B9;
+    }
+
+    // [slab:20][offset:24][length:20]
+    private static long pack(long address, int length) {
+        long slab = address >>> 32;
+        long offset = SlabAllocator.offset(address);
+        return (slab << (OFFSET_BITS + LENGTH_BITS)) | (offset << LENGTH_BITS) | length;
+    }
+
+    private static long address(long location) {
+        long slab = location >>> (OFFSET_BITS + LENGTH_BITS);
+        long offset = (location >>> LENGTH_BITS) & ((1L << OFFSET_BITS) - 1);
+        return (slab << 32) | offset;
+    }
+
+    private static int length(long location) {
+        return (int) (location & ((1L << LENGTH_BITS) - 1));
+    }
+}
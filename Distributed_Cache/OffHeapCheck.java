@@ -0,0 +1,51 @@
+package Distributed_Cache;
+
+/**
+ * Fills an OffHeapCacheNode's slab budget with two size classes and checks that
+ * a full class evicts its own oldest entry, that a class with no entries takes
+ * back a slab without losing a key's old value first, and that cleanUp() reclaims
+ * expired entries a stretch at a time.
+ */
+public class OffHeapCheck {
+
+    public static void main(String[] args) {
+        // 128 KB budget in 64 KB slabs: one slab for large values, one for small ones
+        OffHeapCacheNode<String, String> node = new OffHeapCacheNode<>(100_000, 128 << 10, Serializer.STRING);
+        for (int i = 0; i < 10; i++) node.put("large-" + i, "x".repeat(1_000));
+        // a 24-byte chunk each, so about 2,700 fit in the small slab
+        int small = 5_000;
+        for (int i = 0; i < small; i++) node.put("small-" + i, "s");
+
+        // the global LRU head is a large entry, but only a small chunk can hold a small value
+        Checks.check("oldest large entry kept", node.get("large-0") != null);
+        Checks.check("oldest small entries evicted", node.get("small-0") == null && node.get("small-1999") == null);
+        Checks.check("newest small entry stored", node.get("small-" + (small - 1)) != null);
+
+        // no slab left and no medium entry to evict: large-1 is now the LRU entry, so the
+        // large slab changes hands
+        node.put("medium", "m".repeat(200));
+        Checks.check("value of an empty size class stored", node.get("medium") != null);
+        Checks.check("large slab handed over", node.get("large-0") == null && node.get("large-9") == null);
+        Checks.check("small entries kept", node.get("small-" + (small - 1)), "s");
+        Checks.check("budget kept", node.offHeapBytes(), 128L << 10);
+
+        // the large class is dry now; the key's old value may go, but not before the new one is in
+        node.put("small-" + (small - 1), "t".repeat(1_000));
+        Checks.check("key moved to an empty size class", node.get("small-" + (small - 1)), "t".repeat(1_000));
+        for (int i = 0; i < 1_000; i++) node.put("small-" + i, "s");
+        Checks.check("small values fit again", node.get("small-999"), "s");
+
+        ExpiryCheck.ManualClock clock = new ExpiryCheck.ManualClock();
+        OffHeapCacheNode<String, String> expiring =
+                new OffHeapCacheNode<>(20_000, 16 << 20, Serializer.STRING, 1_000, clock);
+        for (int i = 0; i < 10_000; i++) expiring.put("k" + i, "v");
+        clock.advance(1_000);
+        expiring.cleanUp();
+        int afterOne = expiring.size();
+        System.out.println("Entries after one cleanUp: " + afterOne + " of 10000");
+        Checks.check("one cleanUp only visits part of the table", afterOne > 0 && afterOne < 10_000);
+        for (int i = 0; i < 16; i++) expiring.cleanUp();
+        Checks.check("repeated cleanUp reclaims everything", expiring.size() == 0);
+        Checks.finish();
+    }
+}
@@ -0,0 +1,71 @@
+package Distributed_Cache;
+
+import java.lang.management.*;
+
+/**
+ * Loads the same entries into a heap node and an off-heap node and reports the
+ * live heap each one leaves behind plus the GC count and pause time spent
+ * filling it and reading it back. Pass the entry count as the first argument
+ * (default 5,000,000) and run each mode in its own JVM for clean numbers:
+ *
+ *   java -Xmx4g Distributed_Cache.OffHeapFootprintReport 5000000 heap
+ *   java -Xmx4g Distributed_Cache.OffHeapFootprintReport 5000000 offheap
+ */
+public class OffHeapFootprintReport {
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String mode = args.length > 1 ? args[1] : "both";
+
+        if (!mode.equals("offheap")) {
+            run("HashMap (LocalCacheNode)", entries,
+                    new LocalCacheNode<>(entries, new EvictionByLinkedLRU<>()));
+        }
+        if (!mode.equals("heap")) {
+            run("Off-heap slabs", entries, new OffHeapCacheNode<>(entries, 64L * entries + (64 << 20), Serializer.STRING));
+        }
+    }
+
+    private static void run(String name, int entries, CacheNode<String, String> node) {
+        long baseline = liveHeap();
+        long[] gcBefore = gcTotals();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < entries; i++) {
+            node.put("k" + i, "value-" + i);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < entries; i += 7) node.get("k" + i);
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        long[] gcAfter = gcTotals();
+        long heap = liveHeap() - baseline;
+
+        System.out.println("=== " + name + ", " + entries + " entries ===");
+        System.out.printf("Live heap:        %,d MB%n", heap >> 20);
+        if (node instanceof OffHeapCacheNode) {
+            System.out.printf("Off-heap slabs:   %,d MB%n", ((OffHeapCacheNode) node).offHeapBytes() >> 20);
+        }
+        System.out.printf("GC collections:   %,d%n", gcAfter[0] - gcBefore[0]);
+        System.out.printf("GC time:          %,d ms (of %,d ms run)%n", gcAfter[1] - gcBefore[1], elapsedMs);
+
+        // keep the node reachable until after the measurement
+        if (node.size() < 0) System.out.println(node);
+    }
+
+    private static long liveHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] {count, time};
+    }
+}
@@ -0,0 +1,11 @@
+package Distributed_Cache;
+
+// Which replica serves a read when the replication factor is above 1.
+public enum ReadPolicy {
+    // always the owning node; replicas only take over its data
+    PRIMARY,
+    // rotate through the replicas
+    ROUND_ROBIN,
+    // the replica with the fewest reads in progress
+    LEAST_LOADED
+}
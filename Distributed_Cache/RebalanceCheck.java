@@ -0,0 +1,162 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Adds and then removes a node while readers keep reading every cached key.
+ * No read may fall through to the database, during or after migration.
+ */
+public class RebalanceCheck {
+
+    public static void main(String[] args) throws Exception {
+        AtomicInteger databaseReads = new AtomicInteger();
+        Database<String, String> db = new Database<>() {
+            @Override
+            public String get(String key) {
+                databaseReads.incrementAndGet();
+                return super.get(key);
+            }
+        };
+
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) nodes.add(newNode());
+        DistributedCache<String, String> cache = new DistributedCache<>(nodes, new ConsistentHashDistribution<>(), db);
+
+        int keys = 50_000;
+        for (int i = 0; i < keys; i++) cache.put("key-" + i, "value-" + i);
+
+        CacheNode<String, String> added = newNode();
+        int duringAdd = readAllWhile(cache, keys, databaseReads, () -> cache.addNode(added));
+        System.out.println("New node now holds " + added.size() + " keys");
+        Checks.check("database reads while adding a node", duringAdd, 0);
+        Checks.check("database reads after adding", readAll(cache, keys, databaseReads), 0);
+
+        CacheNode<String, String> removed = cache.getNodes().get(1);
+        int duringRemove = readAllWhile(cache, keys, databaseReads, () -> cache.removeNode(removed));
+        Checks.check("database reads while removing a node", duringRemove, 0);
+        Checks.check("database reads after removing", readAll(cache, keys, databaseReads), 0);
+
+        int total = 0;
+        for (CacheNode<String, String> node : cache.getNodes()) total += node.size();
+        Checks.check("keys held by remaining nodes", total, keys);
+        cache.close();
+
+        failedMigration();
+        putDuringCopy();
+        Checks.finish();
+    }
+
+    // A migration that throws is reported once, through its own future; later changes and
+    // close() still work, and close() still flushes write-behind.
+    private static void failedMigration() {
+        AtomicInteger flushed = new AtomicInteger();
+        Database<String, String> db = new Database<>() {
+            @Override
+            public void putAll(Map<String, String> entries) {
+                flushed.addAndGet(entries.size());
+            }
+        };
+        CacheNode<String, String> broken = new ConcurrentCacheNode<String, String>(1_000, 1, EvictionByLRU::new) {
+            @Override
+            public void forEachEntry(CacheEntryVisitor<String, String> visitor) {
+                throw new IllegalStateException("scan failed");
+            }
+        };
+        DistributedCache<String, String> cache = new DistributedCache.Builder<>(
+                new ArrayList<>(List.of(broken)), new ConsistentHashDistribution<String>(), db)
+                .writeMode(WriteMode.WRITE_BEHIND)
+                .writeBehindIntervalMillis(60_000)
+                .build();
+        cache.put("a", "1");
+
+        CompletableFuture<Void> failed = cache.addNode(newNode());
+        failed.handle((ignored, error) -> null).join();
+        Checks.check("failed migration reported by its future", failed.isCompletedExceptionally());
+        boolean nextChangeWorks;
+        try {
+            cache.addNode(newNode()).handle((ignored, error) -> null).join();
+            nextChangeWorks = true;
+        } catch (RuntimeException e) {
+            nextChangeWorks = false;
+        }
+        Checks.check("membership change after a failed one works", nextChangeWorks);
+        cache.close();
+        Checks.check("write-behind entries flushed by close()", flushed.get(), 1);
+    }
+
+    // A put that lands while migration is copying the same key must win over the old copy.
+    private static void putDuringCopy() throws Exception {
+        CountDownLatch copying = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        CacheNode<String, String> target = new ConcurrentCacheNode<String, String>(1_000, 1, EvictionByLRU::new) {
+            @Override
+            public void put(String key, String value, long ttlMillis) {
+                if (Thread.currentThread().getName().equals("cache-rebalancer")) {
+                    copying.countDown();
+                    try {
+                        resume.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.put(key, value, ttlMillis);
+            }
+        };
+
+        CacheNode<String, String> source = newNode();
+        DistributedCache<String, String> cache = new DistributedCache<>(
+                new ArrayList<>(List.of(source)), new ConsistentHashDistribution<>(), new Database<>());
+        // a key the new node will own
+        String key = null;
+        for (int i = 0; key == null; i++) {
+            if (new ConsistentHashDistribution<String>().getNode("k" + i, List.of(source, target)) == target) key = "k" + i;
+        }
+        cache.put(key, "old");
+
+        CompletableFuture<Void> migration = cache.addNode(target);
+        copying.await();
+        String movedKey = key;
+        Thread writer = new Thread(() -> cache.put(movedKey, "new"));
+        writer.start();
+        Thread.sleep(100);
+        resume.countDown();
+        writer.join();
+        migration.join();
+        Checks.check("value after a put during its copy", cache.get(key), "new");
+        cache.close();
+    }
+
+    private static CacheNode<String, String> newNode() {
+        return new ConcurrentCacheNode<>(100_000, 8, cap -> new LocalCacheNode<>(cap, new EvictionByLinkedLRU<>()));
+    }
+
+    private static int readAllWhile(DistributedCache<String, String> cache, int keys, AtomicInteger databaseReads,
+                                    Callable<CompletableFuture<Void>> change) throws Exception {
+        int before = databaseReads.get();
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        AtomicBoolean migrating = new AtomicBoolean(true);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            futures.add(readers.submit(() -> {
+                do {
+                    for (int i = 0; i < keys; i++) cache.get("key-" + i);
+                } while (migrating.get());
+            }));
+        }
+
+        change.call().join();
+        migrating.set(false);
+        for (Future<?> future : futures) future.get();
+        readers.shutdown();
+        return databaseReads.get() - before;
+    }
+
+    private static int readAll(DistributedCache<String, String> cache, int keys, AtomicInteger databaseReads) {
+        int before = databaseReads.get();
+        for (int i = 0; i < keys; i++) cache.get("key-" + i);
+        return databaseReads.get() - before;
+    }
+}
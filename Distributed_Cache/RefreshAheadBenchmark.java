@@ -0,0 +1,97 @@
+package Distributed_Cache;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Reads a small set of hot keys at a steady rate from a cache whose entries
+ * expire every 200 ms, against a database that takes 5 ms per load. Without
+ * refresh every expiry stalls the readers that hit it; with refresh after
+ * 100 ms the reload happens in the background. Reports get latency percentiles.
+ */
+public class RefreshAheadBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int HOT_KEYS = 100;
+    private static final long TTL_MILLIS = 200;
+    private static final long REFRESH_MILLIS = 100;
+    private static final long RUN_MILLIS = 4_000;
+
+    public static void main(String[] args) throws Exception {
+        for (long refresh : new long[]{0, REFRESH_MILLIS, 0, REFRESH_MILLIS}) {
+            AtomicInteger loads = new AtomicInteger();
+            Database<String, String> db = new Database<>() {
+                @Override
+                public String get(String key) {
+                    loads.incrementAndGet();
+                    LockSupport.parkNanos(5_000_000);
+                    return "value-" + key;
+                }
+            };
+
+            List<CacheNode<String, String>> nodes = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                nodes.add(new ConcurrentCacheNode<>(1_000, 4, cap ->
+                        new LocalCacheNode<>(cap, new EvictionByLinkedLRU<>(), TTL_MILLIS, Clock.systemUTC())));
+            }
+            // the common pool is too small on few cores to keep up with blocking loads
+            ExecutorService loader = Executors.newFixedThreadPool(16);
+            DistributedCache<String, String> cache = new DistributedCache.Builder<>(nodes, new ConsistentHashDistribution<>(), db)
+                    .refreshAfterWriteMillis(refresh)
+                    .loadExecutor(loader)
+                    .build();
+
+            long[] latencies = run(cache);
+            Arrays.sort(latencies);
+            System.out.printf("refresh %-8s gets=%,d p50=%,6d us p99=%,6d us p99.9=%,6d us max=%,6d us loads=%d%n",
+                    refresh == 0 ? "off" : refresh + "ms", latencies.length,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies[latencies.length - 1] / 1_000, loads.get());
+            cache.close();
+            loader.shutdown();
+        }
+    }
+
+    private static long[] run(DistributedCache<String, String> cache) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + RUN_MILLIS * 1_000_000;
+        List<Future<long[]>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                Random random = new Random();
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    String key = "hot-" + random.nextInt(HOT_KEYS);
+                    long start = System.nanoTime();
+                    cache.get(key);
+                    long elapsed = System.nanoTime() - start;
+
+                    if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+                    samples[count++] = elapsed;
+                    // steady request rate rather than a tight loop
+                    LockSupport.parkNanos(100_000);
+                }
+                return Arrays.copyOf(samples, count);
+            }));
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> result : results) {
+            long[] samples = result.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + samples.length);
+            System.arraycopy(samples, 0, all, offset, samples.length);
+        }
+        pool.shutdown();
+        return all;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, p * sorted.length)] / 1_000;
+    }
+}
@@ -0,0 +1,110 @@
+package Distributed_Cache;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Starts three CacheServers on loopback ports and runs a DistributedCache over
+ * RemoteCacheNode proxies to them: puts, gets, getAll (MGET), removes, a
+ * remote error, pipelined versus one-at-a-time reads, a multi-page SCAN,
+ * adding and removing a remote node, and a server going away.
+ */
+public class RemoteCacheCheck {
+
+    public static void main(String[] args) throws Exception {
+        List<CacheServer<String, String>> servers = new ArrayList<>();
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CacheServer<String, String> server = new CacheServer<>(
+                    new LocalCacheNode<>(100_000, new EvictionByLinkedLRU<>()), Serializer.STRING, Serializer.STRING, 0);
+            servers.add(server);
+            nodes.add(new RemoteCacheNode<>(server.getPort(), Serializer.STRING, Serializer.STRING));
+        }
+        DistributedCache<String, String> cache =
+                new DistributedCache<>(nodes, new ConsistentHashDistribution<>(), new Database<>());
+
+        int keys = 10_000;
+        for (int i = 0; i < keys; i++) cache.put("key-" + i, "value-" + i);
+
+        int wrong = 0;
+        for (int i = 0; i < keys; i++) {
+            if (!("value-" + i).equals(cache.get("key-" + i))) wrong++;
+        }
+        int stored = 0;
+        for (CacheNode<String, String> node : nodes) stored += node.size();
+        Checks.check("wrong values", wrong, 0);
+        Checks.check("entries on servers", stored, keys);
+
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) batch.add("key-" + i);
+        Checks.check("getAll hits", cache.getAll(batch).size(), 500);
+
+        RemoteCacheNode<String, String> first = (RemoteCacheNode<String, String>) nodes.get(0);
+        first.put("gone", "soon");
+        first.remove("gone");
+        Checks.check("after DEL", first.get("gone"), null);
+
+        CacheServer<String, String> offHeap = new CacheServer<>(
+                new OffHeapCacheNode<>(10, 1 << 20, Serializer.STRING), Serializer.STRING, Serializer.STRING, 0);
+        try (RemoteCacheNode<String, String> tiny =
+                     new RemoteCacheNode<>(offHeap.getPort(), Serializer.STRING, Serializer.STRING)) {
+            tiny.put("huge", "x".repeat(2 << 20));
+            Checks.check("oversized put rejected", false);
+        } catch (IllegalStateException e) {
+            System.out.println("Remote error surfaced: " + e.getMessage());
+            Checks.check("oversized put rejected", true);
+        }
+        offHeap.close();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < keys; i++) first.get("key-" + i);
+        double sequential = keys * 1e9 / (System.nanoTime() - start);
+
+        start = System.nanoTime();
+        List<CompletableFuture<String>> window = new ArrayList<>();
+        for (int i = 0; i < keys; i++) {
+            window.add(first.getAsync("key-" + i));
+            if (window.size() == 256) {
+                for (CompletableFuture<String> f : window) f.join();
+                window.clear();
+            }
+        }
+        for (CompletableFuture<String> f : window) f.join();
+        double pipelined = keys * 1e9 / (System.nanoTime() - start);
+        System.out.printf("One at a time: %,10.0f gets/s%n", sequential);
+        System.out.printf("Pipelined x256: %,9.0f gets/s%n", pipelined);
+
+        int[] scanned = new int[1];
+        first.forEachEntry((key, value, expiresAt) -> scanned[0]++);
+        System.out.println("SCAN of node 0 took "
+                + (first.size() + CacheProtocol.SCAN_PAGE_ENTRIES - 1) / CacheProtocol.SCAN_PAGE_ENTRIES + " pages");
+        Checks.check("entries visited by SCAN", scanned[0], first.size());
+
+        CacheServer<String, String> joining = new CacheServer<>(
+                new LocalCacheNode<>(100_000, new EvictionByLinkedLRU<>()), Serializer.STRING, Serializer.STRING, 0);
+        RemoteCacheNode<String, String> joined =
+                new RemoteCacheNode<>(joining.getPort(), Serializer.STRING, Serializer.STRING);
+        cache.addNode(joined).join();
+        cache.removeNode(first).join();
+        // counted before any read, so the database can't fill in what the migration missed
+        stored = joined.size() + nodes.get(1).size() + nodes.get(2).size();
+        System.out.println("After adding node 3 and removing node 0: " + joined.size() + " entries moved to node 3");
+        Checks.check("entries on the members after the changes", stored, keys);
+        joined.close();
+        joining.close();
+
+        servers.get(2).close();
+        try {
+            nodes.get(2).get("key-1");
+            Checks.check("read from a stopped server fails", false);
+        } catch (UncheckedIOException e) {
+            System.out.println("Stopped server: " + e.getCause().getClass().getSimpleName());
+            Checks.check("read from a stopped server fails", true);
+        }
+
+        for (CacheNode<String, String> node : nodes) ((RemoteCacheNode<String, String>) node).close();
+        for (CacheServer<String, String> server : servers) server.close();
+        Checks.finish();
+    }
+}
@@ -0,0 +1,301 @@
+package Distributed_Cache;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * CacheNode proxy for a node served by a CacheServer, so a DistributedCache
+ * can spread its keys over other processes. Requests are spread over a small
+ * pool of connections. Each connection pipelines: a request is written without
+ * waiting for earlier answers, and a reader thread matches responses to
+ * callers by request id. The *Async methods expose that directly.
+ *
+ * The remote node expires and sweeps its own entries, so cleanUp() does
+ * nothing. forEachEntry() pages through the remote entries with SCAN, so
+ * remote nodes can be migrated by addNode/removeNode and snapshotted.
+ */
+public class RemoteCacheNode<K, V> implements CacheNode<K, V>, AutoCloseable {
+
+    private InetSocketAddress address;
+    private Serializer<K> keySerializer;
+    private Serializer<V> valueSerializer;
+    private AtomicReferenceArray<Connection> pool;
+    private AtomicInteger nextConnection = new AtomicInteger();
+    private AtomicInteger nextRequestId = new AtomicInteger();
+    private long timeoutMillis;
+    private StatsCounter stats = StatsCounter.DISABLED;
+
+    public RemoteCacheNode(int port, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), keySerializer, valueSerializer, 4, 5_000);
+    }
+
+    public RemoteCacheNode(InetSocketAddress address, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                           int connections, long timeoutMillis) {
+        if (connections <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Connections and timeout must be positive");
+        }
+        this.address = address;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.pool = new AtomicReferenceArray<>(connections);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    // every client of a server puts it at the same place on the ring
+    @Override
+    public String id() {
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    @Override
+    public V get(K key) {
+        return await(getAsync(key));
+    }
+
+    public CompletableFuture<V> getAsync(K key) {
+        return fetch(key).thenApply(value -> {
+            if (value == null) {
+                stats.recordMiss();
+            } else {
+                stats.recordHit();
+            }
+            return value;
+        });
+    }
+
+    // the remote node still counts it; only this proxy's counters are left alone
+    @Override
+    public V peek(K key) {
+        return await(fetch(key));
+    }
+
+    // one MGET round trip for all keys
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        CacheProtocol.FrameWriter request = new CacheProtocol.FrameWriter(requestId(), CacheProtocol.MGET)
+                .putInt(keys.size());
+        for (K key : keys) request.putBytes(keySerializer.serialize(key));
+
+        ByteBuffer response = await(send(request));
+        status(response);
+        Map<K, V> hits = new HashMap<>();
+        for (int count = response.getInt(); count > 0; count--) {
+            K key = keySerializer.deserialize(CacheProtocol.getBytes(response));
+            hits.put(key, valueSerializer.deserialize(CacheProtocol.getBytes(response)));
+        }
+        for (int i = 0; i < hits.size(); i++) stats.recordHit();
+        for (int i = hits.size(); i < keys.size(); i++) stats.recordMiss();
+        return hits;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        await(putAsync(key, value, CacheProtocol.DEFAULT_TTL));
+    }
+
+    @Override
+    public void put(K key, V value, long ttlMillis) {
+        await(putAsync(key, value, ttlMillis));
+    }
+
+    public CompletableFuture<Void> putAsync(K key, V value, long ttlMillis) {
+        return send(new CacheProtocol.FrameWriter(requestId(), CacheProtocol.PUT)
+                .putBytes(keySerializer.serialize(key))
+                .putBytes(valueSerializer.serialize(value))
+                .putLong(ttlMillis))
+                .thenAccept(RemoteCacheNode::status);
+    }
+
+    @Override
+    public void remove(K key) {
+        await(removeAsync(key));
+    }
+
+    public CompletableFuture<Void> removeAsync(K key) {
+        return send(new CacheProtocol.FrameWriter(requestId(), CacheProtocol.DEL)
+                .putBytes(keySerializer.serialize(key)))
+                .thenAccept(RemoteCacheNode::status);
+    }
+
+    @Override
+    public void cleanUp() {
+    }
+
+    @Override
+    public int size() {
+        ByteBuffer response = await(send(new CacheProtocol.FrameWriter(requestId(), CacheProtocol.SIZE)));
+        status(response);
+        return response.getInt();
+    }
+
+    // Expiry times are the remote node's clock. The server keeps a scan per connection, so every
+    // page goes over the same one.
+    @Override
+    public void forEachEntry(CacheEntryVisitor<K, V> visitor) {
+        Connection connection = connection();
+        int cursor = 0;
+        do {
+            ByteBuffer response = await(send(connection,
+                    new CacheProtocol.FrameWriter(requestId(), CacheProtocol.SCAN).putInt(cursor)));
+            status(response);
+            cursor = response.getInt();
+            for (int count = response.getInt(); count > 0; count--) {
+                K key = keySerializer.deserialize(CacheProtocol.getBytes(response));
+                V value = valueSerializer.deserialize(CacheProtocol.getBytes(response));
+                visitor.visit(key, value, response.getLong());
+            }
+        } while (cursor != 0);
+    }
+
+    @Override
+    public StatsCounter stats() {
+        return stats;
+    }
+
+    @Override
+    public void setStatsCounter(StatsCounter stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < pool.length(); i++) {
+            Connection connection = pool.getAndSet(i, null);
+            if (connection != null) connection.fail(new IOException("Node closed"));
+        }
+    }
+
+    private CompletableFuture<V> fetch(K key) {
+        return send(new CacheProtocol.FrameWriter(requestId(), CacheProtocol.GET)
+                .putBytes(keySerializer.serialize(key)))
+                .thenApply(response -> status(response) == CacheProtocol.NOT_FOUND
+                        ? null
+                        : valueSerializer.deserialize(CacheProtocol.getBytes(response)));
+    }
+
+    private int requestId() {
+        return nextRequestId.incrementAndGet();
+    }
+
+    private CompletableFuture<ByteBuffer> send(CacheProtocol.FrameWriter request) {
+        return send(connection(), request);
+    }
+
+    private CompletableFuture<ByteBuffer> send(Connection connection, CacheProtocol.FrameWriter request) {
+        return connection.send(request.finish()).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Round-robin over the pool, reconnecting slots whose connection has failed.
+    private Connection connection() {
+        int slot = Math.floorMod(nextConnection.getAndIncrement(), pool.length());
+        Connection connection = pool.get(slot);
+        if (connection != null && !connection.closed) return connection;
+
+        synchronized (this) {
+            connection = pool.get(slot);
+            if (connection == null || connection.closed) {
+                try {
+                    connection = new Connection(address);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot connect to " + address, e);
+                }
+                pool.set(slot, connection);
+            }
+            return connection;
+        }
+    }
+
+    // Reads the status byte, turning an error response into an exception.
+    private static byte status(ByteBuffer response) {
+        byte status = response.get();
+        if (status == CacheProtocol.ERROR) {
+            throw new IllegalStateException("Remote node failed: " + CacheProtocol.getString(response));
+        }
+        return status;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new UncheckedIOException(new SocketTimeoutException("No response from remote node"));
+            }
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw e;
+        }
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private final ConcurrentMap<Integer, CompletableFuture<ByteBuffer>> pending = new ConcurrentHashMap<>();
+        private volatile boolean closed;
+
+        Connection(InetSocketAddress address) throws IOException {
+            this.channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            Thread reader = new Thread(this::readResponses, "cache-client-" + address.getPort());
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        CompletableFuture<ByteBuffer> send(ByteBuffer frame) {
+            int id = frame.getInt(4);
+            CompletableFuture<ByteBuffer> response = new CompletableFuture<>();
+            pending.put(id, response);
+            // a timed-out request must not stay in the map
+            response.whenComplete((result, error) -> pending.remove(id));
+
+            try {
+                synchronized (this) {
+                    while (frame.hasRemaining()) channel.write(frame);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+            // fail() may have run before this request was registered
+            if (closed) response.completeExceptionally(new UncheckedIOException(new IOException("Connection closed")));
+            return response;
+        }
+
+        void fail(IOException cause) {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already broken
+            }
+            for (CompletableFuture<ByteBuffer> response : pending.values()) {
+                response.completeExceptionally(new UncheckedIOException(cause));
+            }
+        }
+
+        private void readResponses() {
+            ByteBuffer in = ByteBuffer.allocate(64 << 10);
+            try {
+                while (channel.read(in) >= 0) {
+                    in.flip();
+                    ByteBuffer frame;
+                    while ((frame = CacheProtocol.nextFrame(in)) != null) {
+                        // copied, since the caller reads it on another thread after in is reused
+                        ByteBuffer body = ByteBuffer.allocate(frame.remaining()).put(frame).flip();
+                        CompletableFuture<ByteBuffer> response = pending.remove(body.getInt());
+                        if (response != null) response.complete(body);
+                    }
+                    in.compact();
+                    in = CacheProtocol.ensureCapacity(in);
+                }
+                fail(new EOFException("Remote node closed the connection"));
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Checks that a write lands on all R replicas and that each read policy
+ * spreads the reads of one hot key the way it should.
+ */
+public class ReplicationCheck {
+
+    public static void main(String[] args) {
+        for (ReadPolicy policy : ReadPolicy.values()) {
+            List<CountingNode> nodes = new ArrayList<>();
+            for (int i = 0; i < 5; i++) nodes.add(new CountingNode());
+
+            DistributedCache<String, String> cache = new DistributedCache.Builder<>(
+                    new ArrayList<>(nodes), new ConsistentHashDistribution<>(), new Database<>())
+                    .replicationFactor(3)
+                    .readPolicy(policy)
+                    .build();
+
+            cache.put("hot", "value");
+
+            int copies = 0;
+            for (CountingNode node : nodes) {
+                if (node.contains("hot")) copies++;
+            }
+
+            for (int i = 0; i < 9_000; i++) cache.get("hot");
+
+            StringBuilder reads = new StringBuilder();
+            int replicaReads = 0;
+            int busiest = 0;
+            int quietestReplica = Integer.MAX_VALUE;
+            for (CountingNode node : nodes) {
+                int count = node.reads.get();
+                reads.append(count).append(' ');
+                busiest = Math.max(busiest, count);
+                if (node.contains("hot")) {
+                    replicaReads += count;
+                    quietestReplica = Math.min(quietestReplica, count);
+                }
+            }
+            System.out.println(policy + ": copies=" + copies + " reads per node = " + reads.toString().trim());
+            Checks.check(policy + ": copies", copies, 3);
+            Checks.check(policy + ": reads served by replicas", replicaReads, 9_000);
+            if (policy == ReadPolicy.PRIMARY) Checks.check(policy + ": reads on the primary", busiest, 9_000);
+            if (policy == ReadPolicy.ROUND_ROBIN) Checks.check(policy + ": reads on each replica", quietestReplica, 3_000);
+        }
+        Checks.finish();
+    }
+
+    private static class CountingNode implements CacheNode<String, String> {
+        private CacheNode<String, String> delegate = new ConcurrentCacheNode<>(100, 1, EvictionByLRU::new);
+        private AtomicInteger reads = new AtomicInteger();
+        private Set<String> keys = new HashSet<>();
+
+        boolean contains(String key) {
+            return keys.contains(key);
+        }
+
+        @Override
+        public String get(String key) {
+            reads.incrementAndGet();
+            return delegate.get(key);
+        }
+
+        @Override
+        public void put(String key, String value) {
+            keys.add(key);
+            delegate.put(key, value);
+        }
+
+        @Override
+        public void put(String key, String value, long ttlMillis) {
+            keys.add(key);
+            delegate.put(key, value, ttlMillis);
+        }
+
+        @Override
+        public void remove(String key) {
+            keys.remove(key);
+            delegate.remove(key);
+        }
+
+        @Override
+        public void cleanUp() {
+            delegate.cleanUp();
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public void forEachEntry(CacheEntryVisitor<String, String> visitor) {
+            delegate.forEachEntry(visitor);
+        }
+
+        @Override
+        public StatsCounter stats() {
+            return delegate.stats();
+        }
+
+        @Override
+        public void setStatsCounter(StatsCounter stats) {
+            delegate.setStatsCounter(stats);
+        }
+    }
+}
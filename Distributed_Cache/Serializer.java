@@ -0,0 +1,39 @@
+package Distributed_Cache;
+
+import java.nio.*;
+import java.nio.charset.*;
+
+/**
+ * Turns keys or values into bytes and back. Only used where data leaves the
+ * heap: off-heap slabs, snapshot files and the network protocol. Everything
+ * else stores the objects as they are.
+ */
+public interface Serializer<T> {
+    Serializer<String> STRING = new Serializer<>() {
+        @Override
+        public byte[] serialize(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    // 8 bytes, big-endian
+    Serializer<Long> LONG = new Serializer<>() {
+        @Override
+        public byte[] serialize(Long value) {
+            return ByteBuffer.allocate(8).putLong(value).array();
+        }
+
+        @Override
+        public Long deserialize(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getLong();
+        }
+    };
+
+    byte[] serialize(T value);
+    T deserialize(byte[] bytes);
+}
@@ -0,0 +1,144 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Fires 1,000 concurrent readers at one missing key, half through get and half
+ * through getAsync, and checks that the database is hit exactly once. Also checks
+ * that a rejected or failed load leaves nothing behind for later readers to wait on.
+ */
+public class SingleFlightCheck {
+
+    public static void main(String[] args) throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Database<String, String> db = new Database<>() {
+            @Override
+            public String get(String key) {
+                loads.incrementAndGet();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "value-" + key;
+            }
+        };
+
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new ConcurrentCacheNode<>(1_000, 4, EvictionByLRU::new));
+        }
+        DistributedCache<String, String> cache = new DistributedCache<>(nodes, new ConsistentHashDistribution<>(), db);
+
+        int readers = 1_000;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < readers; i++) {
+            boolean async = i % 2 == 0;
+            results.add(pool.submit(() -> {
+                start.await();
+                return async ? cache.getAsync("hot").get() : cache.get("hot");
+            }));
+        }
+
+        start.countDown();
+        int correct = 0;
+        for (Future<String> result : results) {
+            if ("value-hot".equals(result.get())) correct++;
+        }
+        pool.shutdown();
+
+        Checks.check("readers with the right value", correct, readers);
+        Checks.check("database loads", loads.get(), 1);
+
+        lateRegistration();
+        failedLoads();
+        Checks.finish();
+    }
+
+    // A reader misses, then stalls until another reader's load has finished and left
+    // inFlight. When it registers its own load, the re-check must find the cached value.
+    private static void lateRegistration() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Database<String, String> db = new Database<>() {
+            @Override
+            public String get(String key) {
+                loads.incrementAndGet();
+                return "value-" + key;
+            }
+        };
+
+        CountDownLatch firstLoadDone = new CountDownLatch(1);
+        CountDownLatch slowReaderMissed = new CountDownLatch(1);
+        Thread[] slowReader = new Thread[1];
+        CacheNode<String, String> node = new ConcurrentCacheNode<String, String>(100, 1, EvictionByLRU::new) {
+            @Override
+            public String get(String key) {
+                String value = super.get(key);
+                if (Thread.currentThread() == slowReader[0]) {
+                    slowReaderMissed.countDown();
+                    try {
+                        firstLoadDone.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return value;
+            }
+        };
+        DistributedCache<String, String> cache = new DistributedCache<>(
+                List.of(node), new ConsistentHashDistribution<>(), db);
+
+        String[] slowResult = new String[1];
+        slowReader[0] = new Thread(() -> slowResult[0] = cache.get("late"));
+        slowReader[0].start();
+        slowReaderMissed.await();
+        cache.get("late");
+        firstLoadDone.countDown();
+        slowReader[0].join();
+
+        Checks.check("late reader's value", slowResult[0], "value-late");
+        Checks.check("database loads with a late registration", loads.get(), 1);
+    }
+
+    private static void failedLoads() throws Exception {
+        Database<String, String> db = new Database<>() {
+            @Override
+            public String get(String key) {
+                if (key.equals("broken")) throw new IllegalStateException("database down");
+                return "value-" + key;
+            }
+        };
+        DistributedCache<String, String> cache = new DistributedCache.Builder<>(
+                List.of(new ConcurrentCacheNode<>(100, 1, EvictionByLRU::new)), new ConsistentHashDistribution<>(), db)
+                .loadExecutor(task -> {
+                    throw new RejectedExecutionException("load pool full");
+                })
+                .build();
+
+        Checks.check("rejected getAsync fails", cache.getAsync("k").isCompletedExceptionally());
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        Future<String> later = reader.submit(() -> cache.get("k"));
+        String value;
+        try {
+            value = later.get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            value = "still waiting on the rejected load";
+        }
+        reader.shutdownNow();
+        Checks.check("get after a rejected getAsync", value, "value-k");
+
+        String thrown;
+        try {
+            cache.get("broken");
+            thrown = "nothing";
+        } catch (RuntimeException e) {
+            thrown = e.getClass().getSimpleName();
+        }
+        Checks.check("loader's exception from get", thrown, "IllegalStateException");
+    }
+}
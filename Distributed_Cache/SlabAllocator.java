@@ -0,0 +1,135 @@
+package Distributed_Cache;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Hands out fixed-size chunks from direct ByteBuffer slabs, memcached style.
+ * Chunk sizes grow by 25% per size class; each slab serves a single class,
+ * and freed chunks go back on that class's free list for reuse. Once the budget
+ * is spent, a slab can be handed to another class with reassign().
+ * A chunk address packs the slab index (high 32 bits) and the offset (low 32 bits).
+ */
+public class SlabAllocator {
+
+    private static final int MIN_CHUNK = 16;
+
+    private int slabSize;
+    private long maxBytes;
+    private int[] chunkSizes;
+
+    private List<ByteBuffer> slabs = new ArrayList<>();
+    // size class each slab serves
+    private int[] slabClasses;
+    // per size class: slab being carved up, its next free offset, and returned chunks
+    private int[] currentSlab;
+    private int[] nextOffset;
+    private long[][] freeChunks;
+    private int[] freeCount;
+
+    public SlabAllocator(int slabSize, long maxBytes) {
+        if (slabSize < MIN_CHUNK || maxBytes < slabSize) {
+            throw new IllegalArgumentException("maxBytes must hold at least one slab");
+        }
+        this.slabSize = slabSize;
+        this.maxBytes = maxBytes;
+
+        List<Integer> sizes = new ArrayList<>();
+        for (long size = MIN_CHUNK; size < slabSize; size = ((long) (size * 1.25) + 7) & ~7L) {
+            sizes.add((int) size);
+        }
+        sizes.add(slabSize);
+        this.chunkSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+
+        this.currentSlab = new int[chunkSizes.length];
+        this.nextOffset = new int[chunkSizes.length];
+        this.freeChunks = new long[chunkSizes.length][16];
+        this.freeCount = new int[chunkSizes.length];
+        this.slabClasses = new int[(int) (maxBytes / slabSize)];
+        Arrays.fill(currentSlab, -1);
+    }
+
+    public int maxChunkSize() {
+        return slabSize;
+    }
+
+    // Chunk address for size bytes, or -1 when the memory budget is used up.
+    public long allocate(int size) {
+        int sizeClass = sizeClass(size);
+
+        if (freeCount[sizeClass] > 0) {
+            return freeChunks[sizeClass][--freeCount[sizeClass]];
+        }
+
+        int chunkSize = chunkSizes[sizeClass];
+        if (currentSlab[sizeClass] < 0 || nextOffset[sizeClass] + chunkSize > slabSize) {
+            if ((long) (slabs.size() + 1) * slabSize > maxBytes) return -1;
+            slabs.add(ByteBuffer.allocateDirect(slabSize));
+            slabClasses[slabs.size() - 1] = sizeClass;
+            currentSlab[sizeClass] = slabs.size() - 1;
+            nextOffset[sizeClass] = 0;
+        }
+
+        int offset = nextOffset[sizeClass];
+        nextOffset[sizeClass] += chunkSize;
+        return ((long) currentSlab[sizeClass] << 32) | offset;
+    }
+
+    public void free(long address, int size) {
+        int sizeClass = sizeClass(size);
+        if (freeCount[sizeClass] == freeChunks[sizeClass].length) {
+            freeChunks[sizeClass] = Arrays.copyOf(freeChunks[sizeClass], freeCount[sizeClass] * 2);
+        }
+        freeChunks[sizeClass][freeCount[sizeClass]++] = address;
+    }
+
+    // Moves a slab to another size class, which carves it up from the start. The caller
+    // has freed every chunk of it that was in use.
+    public void reassign(int slab, int sizeClass) {
+        int previous = slabClasses[slab];
+        int kept = 0;
+        for (int i = 0; i < freeCount[previous]; i++) {
+            long address = freeChunks[previous][i];
+            if (slabIndex(address) != slab) freeChunks[previous][kept++] = address;
+        }
+        freeCount[previous] = kept;
+        if (currentSlab[previous] == slab) currentSlab[previous] = -1;
+
+        slabClasses[slab] = sizeClass;
+        currentSlab[sizeClass] = slab;
+        nextOffset[sizeClass] = 0;
+    }
+
+    public ByteBuffer slab(long address) {
+        return slabs.get(slabIndex(address));
+    }
+
+    public int slabCount() {
+        return slabs.size();
+    }
+
+    public static int slabIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    public static int offset(long address) {
+        return (int) address;
+    }
+
+    public long allocatedBytes() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    public int sizeClasses() {
+        return chunkSizes.length;
+    }
+
+    // index of the class a chunk of size bytes comes from, 0 .. sizeClasses() - 1
+    public int sizeClass(int size) {
+        if (size > slabSize) {
+            throw new IllegalArgumentException("Chunk of " + size + " bytes exceeds slab size " + slabSize);
+        }
+        int index = Arrays.binarySearch(chunkSizes, size);
+        return index >= 0 ? index : -index - 1;
+    }
+}
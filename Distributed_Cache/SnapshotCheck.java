@@ -0,0 +1,56 @@
+package Distributed_Cache;
+
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Snapshots a node with 1M entries, reloads it into a fresh node, and checks
+ * that contents, TTLs and LRU order survive. Prints write and reload times.
+ */
+public class SnapshotCheck {
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        CacheNode<String, String> original = new LocalCacheNode<>(entries, new EvictionByLinkedLRU<>());
+        for (int i = 0; i < entries; i++) {
+            // every tenth entry has a TTL
+            if (i % 10 == 0) {
+                original.put("key-" + i, "value-" + i, 3_600_000);
+            } else {
+                original.put("key-" + i, "value-" + i);
+            }
+        }
+        // shuffle recency a little so order is not just insertion order
+        for (int i = 0; i < entries; i += 3) original.get("key-" + i);
+
+        Path file = Files.createTempFile("cache-node", ".snapshot");
+        try {
+            long start = System.nanoTime();
+            long written = CacheSnapshot.write(original, file, Serializer.STRING, Serializer.STRING);
+            long writeMs = (System.nanoTime() - start) / 1_000_000;
+
+            CacheNode<String, String> restored = new LocalCacheNode<>(entries, new EvictionByLinkedLRU<>());
+            start = System.nanoTime();
+            long loaded = CacheSnapshot.load(file, restored, Serializer.STRING, Serializer.STRING);
+            long loadMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("Wrote %,d entries (%,d KB) in %,d ms%n", written, Files.size(file) >> 10, writeMs);
+            System.out.printf("Reloaded %,d entries in %,d ms%n", loaded, loadMs);
+            Checks.check("entries reloaded", loaded, written);
+            Checks.check("same LRU order and values", sameEntries(original, restored));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        Checks.finish();
+    }
+
+    private static boolean sameEntries(CacheNode<String, String> a, CacheNode<String, String> b) {
+        List<String> left = new ArrayList<>();
+        List<String> right = new ArrayList<>();
+        // TTLs are re-based on reload, so compare whether an expiry exists rather than its exact value
+        a.forEachEntry((key, value, expiresAt) -> left.add(key + "=" + value + (expiresAt != 0 ? "+ttl" : "")));
+        b.forEachEntry((key, value, expiresAt) -> right.add(key + "=" + value + (expiresAt != 0 ? "+ttl" : "")));
+        return left.equals(right);
+    }
+}
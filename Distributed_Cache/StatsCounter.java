@@ -0,0 +1,15 @@
+package Distributed_Cache;
+
+public interface StatsCounter {
+    StatsCounter DISABLED = new DisabledStatsCounter();
+
+    void recordHit();
+    void recordMiss();
+    void recordEviction();
+    void recordNegativeHit();
+    void recordLoadSuccess(long loadNanos);
+    void recordLoadFailure(long loadNanos);
+    // a write-behind batch the database refused; its keys stay queued for the next flush
+    void recordWriteFailure();
+    CacheStatsSnapshot snapshot();
+}
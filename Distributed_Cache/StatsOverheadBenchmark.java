@@ -0,0 +1,85 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Runs the same multi-threaded get/put mix against two identical caches, one
+ * with recordStats() and one without, and reports the throughput cost of stats.
+ * Rounds alternate between the two so JIT and machine noise hit both equally.
+ */
+public class StatsOverheadBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int KEYS = 200_000;
+    private static final long ROUND_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        String[] keys = new String[KEYS];
+        Database<String, String> db = new Database<>();
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key-" + i;
+            db.put(keys[i], "value-" + i);
+        }
+
+        DistributedCache<String, String> plain = build(db, false);
+        DistributedCache<String, String> counted = build(db, true);
+
+        double plainTotal = 0;
+        double countedTotal = 0;
+        for (int round = 0; round < 6; round++) {
+            double off = run(plain, keys);
+            double on = run(counted, keys);
+            // first two rounds are warm-up
+            if (round >= 2) {
+                plainTotal += off;
+                countedTotal += on;
+            }
+        }
+
+        System.out.printf("Stats off: %,12.0f ops/s%n", plainTotal / 4);
+        System.out.printf("Stats on:  %,12.0f ops/s%n", countedTotal / 4);
+        System.out.printf("Overhead:  %11.2f%%%n", 100 * (1 - countedTotal / plainTotal));
+        System.out.println(counted.snapshot());
+    }
+
+    private static DistributedCache<String, String> build(Database<String, String> db, boolean stats) {
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(new ConcurrentCacheNode<>(40_000, 16, cap -> new LocalCacheNode<>(cap, new EvictionByLinkedLRU<>())));
+        }
+        DistributedCache.Builder<String, String> builder = new DistributedCache.Builder<>(nodes, new ConsistentHashDistribution<>(), db);
+        if (stats) builder.recordStats();
+        return builder.build();
+    }
+
+    private static double run(DistributedCache<String, String> cache, String[] keys) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicLong ops = new AtomicLong();
+        long deadline = System.nanoTime() + ROUND_MILLIS * 1_000_000;
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while ((done & 1023) != 0 || System.nanoTime() < deadline) {
+                    // skewed towards the first 10% of keys, 5% writes
+                    int index = random.nextInt(10) < 8 ? random.nextInt(KEYS / 10) : random.nextInt(KEYS);
+                    if (random.nextInt(20) == 0) {
+                        cache.put(keys[index], "value-" + index);
+                    } else {
+                        cache.get(keys[index]);
+                    }
+                    done++;
+                }
+                ops.addAndGet(done);
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        pool.shutdown();
+
+        return ops.get() * 1_000.0 / ROUND_MILLIS;
+    }
+}
@@ -0,0 +1,86 @@
+package Distributed_Cache;
+
+import java.util.function.*;
+
+/**
+ * Hashed timer wheel that buckets entries by expiry time, so a sweep only
+ * visits the buckets whose time has passed instead of scanning the whole map.
+ * Entries expiring more than one revolution ahead stay in their bucket and
+ * are skipped until their turn comes round. Each bucket is a circular list
+ * threaded through the entries themselves, so an entry that is removed or
+ * rescheduled leaves its bucket at once instead of waiting for a sweep.
+ */
+public class TimerWheel<K, V> {
+
+    // sentinel of each bucket's list
+    private CacheEntry<K, V>[] buckets;
+    private int mask;
+    private long tickMillis;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(int bucketCount, long tickMillis, long now) {
+        int count = Integer.highestOneBit(Math.max(2, bucketCount));
+        this.buckets = (CacheEntry<K, V>[]) new CacheEntry<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            CacheEntry<K, V> sentinel = new CacheEntry<>(null, null);
+            sentinel.wheelPrev = sentinel;
+            sentinel.wheelNext = sentinel;
+            buckets[i] = sentinel;
+        }
+        this.mask = count - 1;
+        this.tickMillis = tickMillis;
+        this.currentTick = now / tickMillis;
+    }
+
+    // Files the entry under its current expiry time, moving it if it was already scheduled.
+    public void schedule(CacheEntry<K, V> entry) {
+        unschedule(entry);
+        CacheEntry<K, V> sentinel = buckets[bucketOf(entry.getExpiresAt())];
+        entry.wheelPrev = sentinel.wheelPrev;
+        entry.wheelNext = sentinel;
+        sentinel.wheelPrev.wheelNext = entry;
+        sentinel.wheelPrev = entry;
+    }
+
+    // No-op for an entry that isn't scheduled.
+    public void unschedule(CacheEntry<K, V> entry) {
+        if (entry.wheelNext == null) return;
+        entry.wheelPrev.wheelNext = entry.wheelNext;
+        entry.wheelNext.wheelPrev = entry.wheelPrev;
+        entry.wheelPrev = null;
+        entry.wheelNext = null;
+    }
+
+    public boolean sameBucket(long expiresAt, long otherExpiresAt) {
+        return bucketOf(expiresAt) == bucketOf(otherExpiresAt);
+    }
+
+    // Unschedules every expired entry in the elapsed buckets and hands it to onExpired.
+    public void advance(long now, Consumer<CacheEntry<K, V>> onExpired) {
+        long targetTick = now / tickMillis;
+        if (targetTick < currentTick) return;
+
+        // one full revolution already covers every bucket
+        long fromTick = Math.max(currentTick, targetTick - mask);
+
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            CacheEntry<K, V> sentinel = buckets[(int) (tick & mask)];
+            CacheEntry<K, V> entry = sentinel.wheelNext;
+            while (entry != sentinel) {
+                CacheEntry<K, V> next = entry.wheelNext;
+                // anything else is due in a later revolution
+                if (entry.isExpired(now)) {
+                    unschedule(entry);
+                    onExpired.accept(entry);
+                }
+                entry = next;
+            }
+        }
+        currentTick = targetTick;
+    }
+
+    private int bucketOf(long expiresAt) {
+        return (int) ((expiresAt / tickMillis) & mask);
+    }
+}
@@ -0,0 +1,14 @@
+package Distributed_Cache;
+
+// How much of a node's maxWeight an entry uses.
+public interface Weigher<K, V> {
+    // rough heap bytes: two String objects with their UTF-16 char data
+    Weigher<String, String> STRING_BYTES = (key, value) -> 80 + 2 * (key.length() + value.length());
+
+    int weigh(K key, V value);
+
+    // every entry weighs 1, so maxWeight is just another entry count
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
@@ -0,0 +1,42 @@
+package Distributed_Cache;
+
+/**
+ * Fills a byte-bounded node with a mix of tiny, medium and huge values and
+ * checks that the weight bound holds, that a big value evicts only as many
+ * small ones as it needs, and that an oversized value is rejected.
+ */
+public class WeightCheck {
+
+    public static void main(String[] args) {
+        Weigher<String, String> valueBytes = (key, value) -> value.length();
+        LocalCacheNode<String, String> node = new LocalCacheNode<>(10_000, valueBytes, new EvictionByLinkedLRU<>());
+
+        for (int i = 0; i < 1_000; i++) node.put("small-" + i, "x".repeat(10));
+        Checks.check("1,000 x 10 B: size", node.size(), 1_000);
+        Checks.check("1,000 x 10 B: weight", node.weightedSize(), 10_000L);
+
+        node.put("medium", "m".repeat(2_500));
+        Checks.check("+ one 2.5 KB value: size", node.size(), 751);
+        Checks.check("+ one 2.5 KB value: weight", node.weightedSize(), 10_000L);
+
+        node.put("huge", "h".repeat(2 * 1024 * 1024));
+        Checks.check("+ one 2 MB value: rejected", node.get("huge") == null);
+        Checks.check("+ one 2 MB value: size", node.size(), 751);
+        Checks.check("+ one 2 MB value: weight", node.weightedSize(), 10_000L);
+
+        // an update that grows a value must evict others to make room
+        node.put("medium", "m".repeat(5_000));
+        System.out.println("grow medium to 5 KB: size=" + node.size() + " weight=" + node.weightedSize());
+        Checks.check("grown medium kept", node.get("medium") != null);
+        Checks.checkAtMost("weight after growing medium", node.weightedSize(), 10_000);
+
+        int maxSeen = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int length = i % 100 == 0 ? 3_000 : 1 + i % 200;
+            node.put("mixed-" + i, "v".repeat(length));
+            maxSeen = (int) Math.max(maxSeen, node.weightedSize());
+        }
+        Checks.checkAtMost("mixed sizes: max weight seen", maxSeen, 10_000);
+        Checks.finish();
+    }
+}
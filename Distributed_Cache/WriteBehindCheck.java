@@ -0,0 +1,131 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Puts the same few keys many times in write-behind mode and checks that the
+ * database sees coalesced batches, that reads see unflushed values, and that
+ * close() flushes everything. Then races readers against flushes and writers
+ * against close() on a bare WriteBehindQueue, and checks that a failed flush is
+ * counted and retried.
+ */
+public class WriteBehindCheck {
+
+    public static void main(String[] args) throws InterruptedException {
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger rows = new AtomicInteger();
+        AtomicInteger singlePuts = new AtomicInteger();
+
+        Database<String, String> db = new Database<>() {
+            @Override
+            public void put(String key, String value) {
+                singlePuts.incrementAndGet();
+                super.put(key, value);
+            }
+
+            @Override
+            public void putAll(Map<String, String> entries) {
+                batches.incrementAndGet();
+                rows.addAndGet(entries.size());
+                super.putAll(entries);
+            }
+        };
+
+        List<CacheNode<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new ConcurrentCacheNode<>(1, 1, EvictionByLRU::new));
+        }
+
+        DistributedCache<String, String> cache = new DistributedCache.Builder<>(nodes, new ConsistentHashDistribution<>(), db)
+                .writeMode(WriteMode.WRITE_BEHIND)
+                .writeBehindBatchSize(1_000)
+                .writeBehindIntervalMillis(60_000)
+                .build();
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("key-" + (i % 10), "v" + i);
+        }
+
+        // capacity 1 per node, so most keys were evicted and must come from the queue
+        Checks.check("read before flush", cache.get("key-3"), "v9993");
+
+        cache.close();
+
+        Checks.check("single puts", singlePuts.get(), 0);
+        Checks.check("batches", batches.get(), 1);
+        Checks.check("rows written for 10 keys put 10,000 times", rows.get(), 10);
+        Checks.check("database after close", db.get("key-9"), "v9999");
+
+        readsDuringFlush();
+        writesDuringClose();
+        failedFlushes();
+        Checks.finish();
+    }
+
+    // Every enqueued key must be either still pending or already in the database.
+    private static void readsDuringFlush() throws InterruptedException {
+        Database<String, String> db = new Database<>();
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>(db, 50, 1);
+        int keys = 200_000;
+        AtomicInteger enqueued = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < keys; i++) {
+                queue.enqueue("key-" + i, "v" + i);
+                enqueued.set(i + 1);
+            }
+        });
+        writer.start();
+
+        int lost = 0;
+        Random random = new Random(1);
+        while (writer.isAlive()) {
+            int written = enqueued.get();
+            if (written == 0) continue;
+            String key = "key-" + random.nextInt(written);
+            if (queue.pending(key) == null && db.get(key) == null) lost++;
+        }
+        writer.join();
+        queue.close();
+        Checks.check("reads that found a written key nowhere", lost, 0);
+    }
+
+    private static void writesDuringClose() throws InterruptedException {
+        int missing = 0;
+        for (int round = 0; round < 200; round++) {
+            Database<String, String> db = new Database<>();
+            WriteBehindQueue<String, String> queue = new WriteBehindQueue<>(db, 10, 60_000);
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) queue.enqueue("key-" + i, "v" + i);
+            });
+            writer.start();
+            Thread.yield();
+            queue.close();
+            writer.join();
+            for (int i = 0; i < 1_000; i++) {
+                if (db.get("key-" + i) == null) missing++;
+            }
+        }
+        Checks.check("writes lost by racing close()", missing, 0);
+    }
+
+    private static void failedFlushes() throws InterruptedException {
+        AtomicInteger refusals = new AtomicInteger(3);
+        Database<String, String> db = new Database<>() {
+            @Override
+            public void putAll(Map<String, String> entries) {
+                if (refusals.getAndDecrement() > 0) throw new IllegalStateException("database down");
+                super.putAll(entries);
+            }
+        };
+        StatsCounter stats = new ConcurrentStatsCounter();
+        WriteBehindQueue<String, String> queue = new WriteBehindQueue<>(db, 10, 1);
+        queue.setStatsCounter(stats);
+        queue.enqueue("key", "value");
+        for (int i = 0; i < 500 && db.get("key") == null; i++) Thread.sleep(10);
+        queue.close();
+
+        Checks.check("value written after failed flushes", db.get("key"), "value");
+        Checks.check("failed flushes counted", stats.snapshot().getWriteFailureCount(), 3L);
+    }
+}
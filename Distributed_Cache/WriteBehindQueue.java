@@ -0,0 +1,140 @@
+package Distributed_Cache;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Collects dirty keys and writes them to the database in batches, either when
+ * batchSize keys are waiting or every intervalMillis, whichever comes first.
+ * Repeated writes to one key before a flush collapse into the latest value.
+ * All flushes run on a single thread, so batches reach the database in order.
+ */
+public class WriteBehindQueue<K, V> implements AutoCloseable {
+
+    private Database<K, V> database;
+    private int batchSize;
+
+    private ConcurrentMap<K, V> dirty = new ConcurrentHashMap<>();
+    // the batch being written right now, still readable until the database has it
+    private volatile Map<K, V> flushing = Collections.emptyMap();
+
+    private ScheduledExecutorService flusher;
+    private Thread shutdownHook;
+    private volatile boolean flushRequested;
+    private volatile boolean closed;
+    private StatsCounter stats = StatsCounter.DISABLED;
+
+    public WriteBehindQueue(Database<K, V> database, int batchSize, long intervalMillis) {
+        this.database = database;
+        this.batchSize = batchSize;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+
+        // pending writes must not be lost when the JVM exits without close()
+        this.shutdownHook = new Thread(this::flushAll, "cache-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public void enqueue(K key, V value) {
+        if (closed) {
+            database.put(key, value);
+            return;
+        }
+
+        dirty.put(key, value);
+        // close() may have drained between the check above and the put; then nobody else will
+        if (closed) {
+            flushAll();
+            return;
+        }
+
+        if (dirty.size() >= batchSize && !flushRequested) {
+            flushRequested = true;
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // closed since the check above
+                flushAll();
+            }
+        }
+    }
+
+    // The value still waiting to be written for key, or null.
+    public V pending(K key) {
+        V value = dirty.get(key);
+        return value != null ? value : flushing.get(key);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // already shutting down
+        }
+    }
+
+    private synchronized void flushAll() {
+        while (!dirty.isEmpty()) flush();
+    }
+
+    private synchronized void flush() {
+        flushRequested = false;
+
+        // published before any key leaves dirty, so pending() never sees a key in neither
+        Map<K, V> batch = new ConcurrentHashMap<>();
+        flushing = batch;
+        for (Map.Entry<K, V> entry : dirty.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            // a newer write stays dirty for the next batch
+            dirty.remove(entry.getKey(), entry.getValue());
+            if (batch.size() == batchSize) break;
+        }
+        if (batch.isEmpty()) {
+            flushing = Collections.emptyMap();
+            return;
+        }
+
+        try {
+            database.putAll(batch);
+        } catch (RuntimeException e) {
+            // put the batch back unless a newer write for the key arrived meanwhile
+            for (Map.Entry<K, V> entry : batch.entrySet()) {
+                dirty.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            throw e;
+        } finally {
+            flushing = Collections.emptyMap();
+        }
+    }
+
+    // Counts failed background flushes; one run by close() or enqueue() throws to its caller.
+    public void setStatsCounter(StatsCounter stats) {
+        this.stats = stats;
+    }
+
+    private void flushQuietly() {
+        try {
+            // drain in batch-sized chunks until the backlog is gone
+            while (!dirty.isEmpty()) flush();
+        } catch (RuntimeException e) {
+            // the scheduler cancels a task that throws; keep flushing on the next tick
+            stats.recordWriteFailure();
+        }
+    }
+}
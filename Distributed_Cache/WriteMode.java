@@ -0,0 +1,8 @@
+package Distributed_Cache;
+
+public enum WriteMode {
+    // every put reaches the database before it returns
+    WRITE_THROUGH,
+    // puts are queued, coalesced per key and flushed to the database in batches
+    WRITE_BEHIND
+}
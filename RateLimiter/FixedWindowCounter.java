@@ -1,40 +1,112 @@
 package RateLimiter;
 
 import java.util.*;
+import java.util.function.*;
 
 public  class FixedWindowCounter implements RateLimiter {
 
     private int maxRequests;
-    private long windowSizeInMillis;
+    private long windowSizeInNanos;
+    private LongSupplier nanoTime;
 
-    private Map<String, Integer> counter = new HashMap<>();
-    private Map<String, Long> windowStart = new HashMap<>();
+    private KeyStates<Window> windows;
 
     public FixedWindowCounter(int maxRequests, long windowSizeInMillis) {
+        this(maxRequests, windowSizeInMillis, Integer.MAX_VALUE, OverflowPolicy.REJECT, System::nanoTime);
+    }
+
+    public FixedWindowCounter(int maxRequests, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy) {
+        this(maxRequests, windowSizeInMillis, maxKeys, overflowPolicy, System::nanoTime);
+    }
+
+    public FixedWindowCounter(int maxRequests, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy,
+                              LongSupplier nanoTime) {
+        if (maxRequests <= 0 || windowSizeInMillis <= 0) {
+            throw new IllegalArgumentException("maxRequests and window must be positive");
+        }
         this.maxRequests = maxRequests;
-        this.windowSizeInMillis = windowSizeInMillis;
+        this.windowSizeInNanos = windowSizeInMillis * 1_000_000;
+        this.nanoTime = nanoTime;
+        this.windows = new KeyStates<>(maxKeys, overflowPolicy, windowSizeInNanos, nanoTime.getAsLong(),
+                Window::new, this::retire);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        long currentTime = nanoTime.getAsLong();
+
+        while (true) {
+            Window window = windows.getOrCreate(key, currentTime);
+            if (window == null) return windows.allowsUntracked();
+
+            synchronized (window) {
+                int result = acquire(window, permits, currentTime, true);
+                if (result != KeyStates.RETIRED) return result == KeyStates.GRANTED;
+            }
+            windows.removeRetired(key, window);
+        }
+    }
+
+    @Override
+    public boolean tryAcquireAll(Collection<String> keys) {
+        return windows.acquireAll(keys, nanoTime.getAsLong(), this::acquire);
     }
 
     @Override
-    public synchronized boolean allowRequest(String key) {
-        long currentTime = System.currentTimeMillis();
+    public long nextAvailableNanos(String key) {
+        long currentTime = nanoTime.getAsLong();
+        Window window = windows.get(key);
+        if (window == null) return windows.untilRoom(currentTime);
 
-        windowStart.putIfAbsent(key, currentTime);
+        synchronized (window) {
+            if (window.retired) return windows.untilRoom(currentTime);
+            if (currentTime - window.start >= windowSizeInNanos || window.count < maxRequests) return 0;
+            return window.start + windowSizeInNanos - currentTime;
+        }
+    }
 
-        long start = windowStart.get(key);
+    @Override
+    public void cleanUp() {
+        windows.cleanUp(nanoTime.getAsLong());
+    }
 
-        if (currentTime - start >= windowSizeInMillis) {
-            windowStart.put(key, currentTime);
-            counter.put(key, 0);
+    public int trackedKeys() {
+        return windows.size();
+    }
+
+    // Called with the window's lock held.
+    private int acquire(Window window, int permits, long currentTime, boolean take) {
+        if (window.retired) return KeyStates.RETIRED;
+
+        if (currentTime - window.start >= windowSizeInNanos) {
+            window.start = currentTime;
+            window.count = 0;
         }
 
-        counter.putIfAbsent(key, 0);
+        if (permits > maxRequests - window.count) return KeyStates.DENIED;
+        if (take) window.count += permits;
+        return KeyStates.GRANTED;
+    }
 
-        if (counter.get(key) < maxRequests) {
-            counter.put(key, counter.get(key) + 1);
+    // idle once its window has ended: the next request would start a fresh one anyway
+    private boolean retire(Window window, long now, boolean force) {
+        synchronized (window) {
+            if (!force && !window.retired && now - window.start < windowSizeInNanos) return false;
+            window.retired = true;
             return true;
         }
+    }
+
+    private static class Window {
+        private long start;
+        private int count;
+        private boolean retired;
 
-        return false;
+        Window(long start) {
+            this.start = start;
+        }
     }
-}
\ No newline at end of file
+}
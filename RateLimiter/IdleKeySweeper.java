@@ -0,0 +1,28 @@
+package RateLimiter;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Periodically calls cleanUp() on every limiter, so idle keys are reclaimed off the request
+// path instead of a few at a time by the requests that add keys.
+public class IdleKeySweeper implements AutoCloseable {
+
+    private ScheduledExecutorService scheduler;
+
+    public IdleKeySweeper(List<? extends RateLimiter> limiters, long intervalMillis) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limiter-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> {
+            for (RateLimiter limiter : limiters) limiter.cleanUp();
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
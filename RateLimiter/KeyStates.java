@@ -0,0 +1,213 @@
+package RateLimiter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+// Per-key state shared by the limiters. A key's state is created on first use and dropped
+// once it is idle, i.e. no different from a fresh one. cleanUp() sweeps every key; without it,
+// a pass starts at most once per sweep interval and requests that add a key each sweep the next
+// SWEEP_BATCH keys of it, so no request pays for the whole table. At most maxKeys keys are
+// tracked; a new key beyond that is handled by the OverflowPolicy.
+class KeyStates<S> {
+
+    // results of an Acquirer
+    static final int RETIRED = -1;
+    static final int DENIED = 0;
+    static final int GRANTED = 1;
+
+    // How many keys an EVICT looks at for an idle one before dropping one that is not.
+    private static final int EVICTION_SCAN = 16;
+    // How many keys a request that adds a key sweeps while a pass is in progress.
+    private static final int SWEEP_BATCH = 64;
+
+    // Marks a state dead, so a request already holding it looks the key up again.
+    // Returns false, and leaves the state alone, if it is not idle and force is false.
+    interface Retirer<S> {
+        boolean retire(S state, long now, boolean force);
+    }
+
+    // A lock-based limiter's check for one key, called with the state's lock held. Returns
+    // RETIRED if the state was swept, else whether the permits are there; takes them only if take.
+    interface Acquirer<S> {
+        int acquire(S state, int permits, long now, boolean take);
+    }
+
+    private ConcurrentMap<String, S> states = new ConcurrentHashMap<>();
+    private AtomicInteger size = new AtomicInteger();
+    private int maxKeys;
+    private OverflowPolicy overflowPolicy;
+    private long sweepInterval;
+    private AtomicLong nextSweep;
+    private LongFunction<S> factory;
+    private Retirer<S> retirer;
+    // EVICT resumes where the last eviction stopped, so each one is O(1) amortized
+    private Iterator<Map.Entry<String, S>> evictionCursor;
+    // the on-access pass in progress, or null between passes
+    private volatile Iterator<Map.Entry<String, S>> sweepCursor;
+    private ReentrantLock sweepLock = new ReentrantLock();
+
+    // factory makes a fresh state for a key first seen at the given time
+    KeyStates(int maxKeys, OverflowPolicy overflowPolicy, long sweepInterval, long now,
+              LongFunction<S> factory, Retirer<S> retirer) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        this.maxKeys = maxKeys;
+        this.overflowPolicy = overflowPolicy;
+        this.sweepInterval = sweepInterval;
+        this.nextSweep = new AtomicLong(now + sweepInterval);
+        this.factory = factory;
+        this.retirer = retirer;
+    }
+
+    // The key's state, created if needed; null if the key is over the cap and not tracked.
+    S getOrCreate(String key, long now) {
+        S state = states.get(key);
+        if (state != null) return state;
+
+        if (sweepCursor != null || now - nextSweep.get() >= 0) sweepSome(now);
+
+        if (!reserve(now)) return null;
+        S created = factory.apply(now);
+        state = states.putIfAbsent(key, created);
+        if (state != null) {
+            size.decrementAndGet();
+            return state;
+        }
+        return created;
+    }
+
+    // The key's state if it is tracked, without creating one.
+    S get(String key) {
+        return states.get(key);
+    }
+
+    // How long a key that is not tracked yet waits to be let in: 0 unless the cap is reached
+    // and new keys are rejected, then until the next sweep may make room.
+    long untilRoom(long now) {
+        if (overflowPolicy != OverflowPolicy.REJECT || size.get() < maxKeys) return 0;
+        return Math.max(0, nextSweep.get() - now);
+    }
+
+    // Called by a limiter whose retired state it just saw, before looking the key up again.
+    void removeRetired(String key, S state) {
+        if (states.remove(key, state)) size.decrementAndGet();
+    }
+
+    // Takes permits from several keys at once, all or none. The states are locked in key order,
+    // so batches that share keys cannot deadlock, and a key listed n times asks for n permits.
+    boolean acquireAll(Collection<String> keys, long now, Acquirer<S> acquirer) {
+        String[] sorted = keys.toArray(new String[0]);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        int[] permits = new int[sorted.length];
+        for (String key : sorted) {
+            if (distinct > 0 && sorted[distinct - 1].equals(key)) {
+                permits[distinct - 1]++;
+            } else {
+                sorted[distinct] = key;
+                permits[distinct++] = 1;
+            }
+        }
+
+        Object[] states = new Object[distinct];
+        while (true) {
+            for (int i = 0; i < distinct; i++) {
+                states[i] = getOrCreate(sorted[i], now);
+                if (states[i] == null && !allowsUntracked()) return false;
+            }
+            int result = acquireLocked(sorted, states, permits, 0, now, acquirer);
+            if (result != RETIRED) return result == GRANTED;
+        }
+    }
+
+    // Locks states[from..] one by one, then checks every key before taking from any.
+    // Untracked keys (null states) are let through.
+    @SuppressWarnings("unchecked")
+    private int acquireLocked(String[] keys, Object[] states, int[] permits, int from, long now, Acquirer<S> acquirer) {
+        if (from < states.length) {
+            if (states[from] == null) return acquireLocked(keys, states, permits, from + 1, now, acquirer);
+            synchronized (states[from]) {
+                return acquireLocked(keys, states, permits, from + 1, now, acquirer);
+            }
+        }
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == null) continue;
+            int result = acquirer.acquire((S) states[i], permits[i], now, false);
+            if (result == RETIRED) removeRetired(keys[i], (S) states[i]);
+            if (result != GRANTED) return result;
+        }
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] != null) acquirer.acquire((S) states[i], permits[i], now, true);
+        }
+        return GRANTED;
+    }
+
+    boolean allowsUntracked() {
+        return overflowPolicy == OverflowPolicy.ALLOW;
+    }
+
+    void cleanUp(long now) {
+        for (Map.Entry<String, S> entry : states.entrySet()) {
+            if (retirer.retire(entry.getValue(), now, false)) removeRetired(entry.getKey(), entry.getValue());
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    // Sweeps the next SWEEP_BATCH keys of the current pass, starting one if it is due.
+    private void sweepSome(long now) {
+        // whoever holds the lock is already sweeping this stretch
+        if (!sweepLock.tryLock()) return;
+        try {
+            Iterator<Map.Entry<String, S>> cursor = sweepCursor;
+            if (cursor == null) {
+                if (now - nextSweep.get() < 0) return;
+                nextSweep.set(now + sweepInterval);
+                cursor = states.entrySet().iterator();
+            }
+            for (int swept = 0; swept < SWEEP_BATCH && cursor.hasNext(); swept++) {
+                Map.Entry<String, S> entry = cursor.next();
+                if (retirer.retire(entry.getValue(), now, false)) removeRetired(entry.getKey(), entry.getValue());
+            }
+            sweepCursor = cursor.hasNext() ? cursor : null;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private boolean reserve(long now) {
+        while (true) {
+            int current = size.get();
+            if (current < maxKeys) {
+                if (size.compareAndSet(current, current + 1)) return true;
+                continue;
+            }
+            if (overflowPolicy != OverflowPolicy.EVICT || !evictOne(now)) return false;
+        }
+    }
+
+    private synchronized boolean evictOne(long now) {
+        Map.Entry<String, S> victim = null;
+        for (int scanned = 0; scanned < EVICTION_SCAN; scanned++) {
+            if (evictionCursor == null || !evictionCursor.hasNext()) {
+                evictionCursor = states.entrySet().iterator();
+                if (!evictionCursor.hasNext()) return false;
+            }
+            Map.Entry<String, S> entry = evictionCursor.next();
+            if (retirer.retire(entry.getValue(), now, false)) {
+                removeRetired(entry.getKey(), entry.getValue());
+                return true;
+            }
+            victim = entry;
+        }
+        // nothing idle nearby: drop the last key looked at, resetting its limit
+        if (retirer.retire(victim.getValue(), now, true)) removeRetired(victim.getKey(), victim.getValue());
+        return true;
+    }
+}
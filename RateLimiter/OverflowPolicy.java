@@ -0,0 +1,11 @@
+package RateLimiter;
+
+// What a limiter does with a new key when it already tracks its maximum number of keys.
+public enum OverflowPolicy {
+    // deny the new key's requests until idle keys are reclaimed (fail closed)
+    REJECT,
+    // let the new key's requests through without tracking it (fail open)
+    ALLOW,
+    // make room by dropping a tracked key, an idle one if the scan finds one quickly
+    EVICT
+}
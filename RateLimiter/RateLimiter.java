@@ -1,5 +1,28 @@
 package RateLimiter;
 
+import java.util.*;
+
 public interface RateLimiter {
-    boolean allowRequest(String key);
-}
\ No newline at end of file
+    // Takes permits from the key's limit, all or none, so a bulk request is one call.
+    boolean tryAcquire(String key, int permits);
+
+    // Takes one permit from every key (e.g. user, tenant and global) or from none of them.
+    // A key listed twice gives two permits. A denied batch takes nothing. The lock-free token
+    // bucket may briefly hold permits of a batch that loses a race to another request on
+    // the same keys and retries, so a request in that instant can be denied; the lock-based
+    // limiters lock every key first and never do.
+    boolean tryAcquireAll(Collection<String> keys);
+
+    // Nanoseconds until the key would next be granted a permit, 0 if it would be now. Takes
+    // nothing, and another request may take that permit first; meant for Retry-After and
+    // for deciding how long to wait.
+    long nextAvailableNanos(String key);
+
+    default boolean allowRequest(String key) {
+        return tryAcquire(key, 1);
+    }
+
+    // Drops the state of keys that have been idle long enough to be no different from new ones.
+    default void cleanUp() {
+    }
+}
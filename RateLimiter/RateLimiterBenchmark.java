@@ -0,0 +1,129 @@
+package RateLimiter;
+
+import java.lang.management.*;
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+// allowRequest throughput of each limiter from 1 to 64 threads over 1,000 keys, with the
+// bytes allocated per call. Limits are set so most requests pass, which is the common case.
+// First prints the memory each limiter holds for one key with a full 10,000-request window.
+// Usage: RateLimiterBenchmark [roundMillis], default 1000.
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 1_000;
+    private static final int MAX_REQUESTS = 1_000;
+    private static final long WINDOW_MILLIS = 100;
+
+    public static void main(String[] args) throws Exception {
+        long roundMillis = args.length > 0 ? Long.parseLong(args[0]) : 1_000;
+
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) keys[i] = "user-" + i;
+        int[] trace = new int[1 << 16];
+        Random random = new Random(1);
+        for (int i = 0; i < trace.length; i++) trace[i] = random.nextInt(KEYS);
+
+        // (maxRequests, windowMillis) -> limiter
+        Map<String, BiFunction<Integer, Long, RateLimiter>> limiters = new LinkedHashMap<>();
+        limiters.put("FixedWindowCounter", FixedWindowCounter::new);
+        limiters.put("SlidingWindowCounter", SlidingWindowCounter::new);
+        limiters.put("SlidingWindowLog", SlidingWindowLog::new);
+        limiters.put("TokenBucketRateLimiter", TokenBucketRateLimiter::new);
+
+        // the heap is still settling after startup, so the first measurement is thrown away
+        bytesPerKey(TokenBucketRateLimiter::new);
+        for (Map.Entry<String, BiFunction<Integer, Long, RateLimiter>> limiter : limiters.entrySet()) {
+            System.out.printf("%-24s %,10d bytes per key at 10,000 requests/min%n",
+                    limiter.getKey(), bytesPerKey(limiter.getValue()));
+        }
+        System.out.println();
+
+        System.out.printf("%-24s %7s %14s %8s %8s%n", "limiter", "threads", "ops/s", "B/op", "allowed");
+        for (Map.Entry<String, BiFunction<Integer, Long, RateLimiter>> limiter : limiters.entrySet()) {
+            for (int threads : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+                RateLimiter instance = limiter.getValue().apply(MAX_REQUESTS, WINDOW_MILLIS);
+                // first round is warm-up
+                run(instance, keys, trace, threads, roundMillis / 2);
+                long[] result = run(instance, keys, trace, threads, roundMillis);
+                System.out.printf("%-24s %7d %,14.0f %8.1f %8.3f%n", limiter.getKey(), threads,
+                        result[0] * 1_000.0 / roundMillis, (double) result[1] / result[0], (double) result[2] / result[0]);
+            }
+        }
+    }
+
+    // Heap freed when a limiter holding 1,000 full windows becomes unreachable, per key.
+    private static long bytesPerKey(BiFunction<Integer, Long, RateLimiter> factory) {
+        RateLimiter limiter = factory.apply(10_000, 60_000L);
+        fill(limiter);
+        long reachable = usedHeap();
+        // otherwise compiled code may treat the limiter as dead before the first reading
+        Reference.reachabilityFence(limiter);
+        limiter = null;
+        // the first round of collections after dropping it does not always reclaim it
+        usedHeap();
+        return (reachable - usedHeap()) / 1_000;
+    }
+
+    private static void fill(RateLimiter limiter) {
+        for (int k = 0; k < 1_000; k++) {
+            for (int i = 0; i < 10_000; i++) limiter.allowRequest("key-" + k);
+        }
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // Returns {calls, bytes allocated, calls allowed}.
+    private static long[] run(RateLimiter limiter, String[] keys, int[] trace, int threads, long roundMillis)
+            throws Exception {
+        AtomicLong calls = new AtomicLong();
+        AtomicLong allocated = new AtomicLong();
+        AtomicLong allowed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + roundMillis * 1_000_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * (trace.length / threads);
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long bytesBefore = allocatedBytes();
+                long done = 0;
+                long passed = 0;
+                int i = offset;
+                while (System.nanoTime() < deadline) {
+                    for (int j = 0; j < 256; j++) {
+                        if (limiter.allowRequest(keys[trace[i]])) passed++;
+                        i = (i + 1) & (trace.length - 1);
+                    }
+                    done += 256;
+                }
+                allocated.addAndGet(allocatedBytes() - bytesBefore);
+                calls.addAndGet(done);
+                allowed.addAndGet(passed);
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        return new long[]{calls.get(), allocated.get(), allowed.get()};
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
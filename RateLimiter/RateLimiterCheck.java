@@ -0,0 +1,280 @@
+package RateLimiter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+// Runnable checks for the limiters, driven by a manual clock where timing matters.
+// Exits with status 1 if any check fails.
+public class RateLimiterCheck {
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        TokenBucketRateLimiter bucket = new TokenBucketRateLimiter(5, 1_000, nanos::get);
+
+        check("burst of capacity", allowed(bucket, "a", 10), 5);
+        nanos.addAndGet(200_000_000);
+        check("one token after 200 ms", allowed(bucket, "a", 10), 1);
+        nanos.addAndGet(100_000_000);
+        check("no token after another 100 ms", allowed(bucket, "a", 10), 0);
+        nanos.addAndGet(100_000_000);
+        check("fraction carried over, token at 400 ms", allowed(bucket, "a", 10), 1);
+        nanos.addAndGet(10_000_000_000L);
+        check("refill caps at capacity", allowed(bucket, "a", 10), 5);
+        check("keys are independent", allowed(bucket, "b", 10), 5);
+
+        // 3 tokens a second: a token costs 333,333.3 us, rounded up, so the rate is never exceeded
+        // and 60 s loses well under one token
+        TokenBucketRateLimiter thirds = new TokenBucketRateLimiter(3, 1_000, nanos::get);
+        allowed(thirds, "c", 3);
+        int granted = 0;
+        for (int ms = 0; ms < 60_000; ms++) {
+            nanos.addAndGet(1_000_000);
+            if (thirds.allowRequest("c")) granted++;
+        }
+        checkBetween("tokens over 60 s at 3/s", granted, 179, 180);
+
+        // 10 per second: at 1.5 s half the previous window still counts, so 5 of its 10 remain
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, 1_000, nanos::get);
+        long base = nanos.get();
+        check("counter, first window", allowed(counter, "d", 20), 10);
+        nanos.set(base + 1_500_000_000L);
+        check("counter, half of previous window weighted", allowed(counter, "d", 20), 5);
+        nanos.set(base + 3_100_000_000L);
+        check("counter, after a skipped window", allowed(counter, "d", 20), 10);
+
+        SlidingWindowLog log = new SlidingWindowLog(10, 1_000, nanos::get);
+        base = nanos.get();
+        for (int i = 0; i < 10; i++) {
+            nanos.set(base + i * 100_000_000L);
+            log.allowRequest("e");
+        }
+        nanos.set(base + 1_000_000_000L);
+        check("log, window still full at 1 s", allowed(log, "e", 5), 0);
+        nanos.set(base + 1_250_000_000L);
+        check("log, exactly the expired requests at 1.25 s", allowed(log, "e", 5), 3);
+
+        // ring grows past its initial 8 slots and keeps oldest-first order
+        SlidingWindowLog big = new SlidingWindowLog(100, 1_000, nanos::get);
+        base = nanos.get();
+        for (int i = 0; i < 100; i++) {
+            nanos.set(base + i * 5_000_000L);
+            big.allowRequest("f");
+        }
+        nanos.set(base + 1_000_000_000L + 249_000_000L);
+        check("log after growing, expired by 1.249 s", allowed(big, "f", 100), 50);
+
+        // idle keys are reclaimed by cleanUp(), but a key still inside its window is kept
+        FixedWindowCounter fixed = new FixedWindowCounter(2, 1_000, Integer.MAX_VALUE, OverflowPolicy.REJECT, nanos::get);
+        for (int i = 0; i < 1_000; i++) fixed.allowRequest("ip-" + i);
+        nanos.addAndGet(1_000_000_000L);
+        allowed(fixed, "busy", 5);
+        fixed.cleanUp();
+        check("fixed window keys left after cleanUp", fixed.trackedKeys(), 1);
+        check("busy key still limited", allowed(fixed, "busy", 5), 0);
+
+        // without cleanUp(), each new key after the sweep interval sweeps the next 64 keys
+        SlidingWindowCounter swept = new SlidingWindowCounter(2, 1_000, Integer.MAX_VALUE, OverflowPolicy.REJECT, nanos::get);
+        for (int i = 0; i < 1_000; i++) swept.allowRequest("ip-" + i);
+        nanos.addAndGet(2_000_000_000L);
+        swept.allowRequest("newcomer-0");
+        check("sliding counter keys after one on-access sweep", swept.trackedKeys(), 1_000 - 64 + 1);
+        for (int i = 1; i < 20; i++) swept.allowRequest("newcomer-" + i);
+        check("sliding counter keys after the pass finishes", swept.trackedKeys(), 20);
+
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            TokenBucketRateLimiter capped = new TokenBucketRateLimiter(1, 60_000, 100, policy, nanos::get);
+            for (int i = 0; i < 100; i++) capped.allowRequest("ip-" + i);
+            boolean newKey = capped.allowRequest("ip-new");
+            boolean oldKey = capped.allowRequest("ip-99");
+            check(policy + ": tracked keys at the cap of 100", capped.trackedKeys(), 100);
+            check(policy + ": new key allowed", newKey ? 1 : 0, policy == OverflowPolicy.REJECT ? 0 : 1);
+            // EVICT scans from the start of the table, so ip-99 is a key it may have dropped
+            if (policy != OverflowPolicy.EVICT) check(policy + ": tracked key still limited", oldKey ? 1 : 0, 0);
+        }
+
+        // a sweeper retiring buckets mid-request must not hand out extra tokens
+        TokenBucketRateLimiter sweptWhileBusy = new TokenBucketRateLimiter(10_000, 60_000, nanos::get);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread sweeper = new Thread(() -> {
+            while (!done.get()) sweptWhileBusy.cleanUp();
+        });
+        sweeper.start();
+        AtomicInteger granted16 = new AtomicInteger();
+        ExecutorService racers = Executors.newFixedThreadPool(16);
+        for (int t = 0; t < 16; t++) {
+            racers.execute(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    if (sweptWhileBusy.allowRequest("hot")) granted16.incrementAndGet();
+                }
+            });
+        }
+        racers.shutdown();
+        racers.awaitTermination(1, TimeUnit.MINUTES);
+        done.set(true);
+        sweeper.join();
+        check("16 threads on one key with a concurrent sweeper", granted16.get(), 10_000);
+
+        // 10 per second on a stopped clock, so every limiter gives the same answers
+        // (maxRequests, windowMillis) -> limiter on the manual clock
+        Map<String, BiFunction<Integer, Long, RateLimiter>> limiters = new LinkedHashMap<>();
+        limiters.put("fixed window",
+                (max, window) -> new FixedWindowCounter(max, window, Integer.MAX_VALUE, OverflowPolicy.REJECT, nanos::get));
+        limiters.put("sliding counter", (max, window) -> new SlidingWindowCounter(max, window, nanos::get));
+        limiters.put("sliding log", (max, window) -> new SlidingWindowLog(max, window, nanos::get));
+        limiters.put("token bucket", (max, window) -> new TokenBucketRateLimiter(max, window, nanos::get));
+        for (Map.Entry<String, BiFunction<Integer, Long, RateLimiter>> entry : limiters.entrySet()) {
+            String name = entry.getKey();
+            RateLimiter limiter = entry.getValue().apply(10, 1_000L);
+
+            int permits = 0;
+            for (int n : new int[] {7, 4, 3, 1}) {
+                if (limiter.tryAcquire("bulk", n)) permits += n;
+            }
+            check(name + ": 7, 4, 3 and 1 permits out of 10", permits, 10);
+
+            // the global key runs out after 10 batches; the users it turned away keep their limit
+            int batches = 0;
+            for (int i = 0; i < 15; i++) {
+                if (limiter.tryAcquireAll(List.of("user-" + i, "global"))) batches++;
+            }
+            check(name + ": batches through a global limit of 10", batches, 10);
+            check(name + ": turned-away user charged nothing", allowed(limiter, "user-12", 20), 10);
+
+            int pairs = 0;
+            for (int i = 0; i < 10; i++) {
+                if (limiter.tryAcquireAll(List.of("twice", "twice"))) pairs++;
+            }
+            check(name + ": a key listed twice takes two permits", pairs, 5);
+
+            // at 1.3 s the key is drained again; the estimate is exact to the nanosecond
+            RateLimiter waiting = entry.getValue().apply(10, 1_000L);
+            long start = nanos.get();
+            allowed(waiting, "wait", 10);
+            nanos.set(start + 1_300_000_000L);
+            allowed(waiting, "wait", 20);
+            long next = waiting.nextAvailableNanos("wait");
+            check(name + ": waiting key has a wait", next > 0 ? 1 : 0, 1);
+            nanos.set(start + 1_300_000_000L + next - 1);
+            check(name + ": denied 1 ns before the estimate", waiting.allowRequest("wait") ? 1 : 0, 0);
+            nanos.set(start + 1_300_000_000L + next);
+            check(name + ": granted at the estimate", waiting.allowRequest("wait") ? 1 : 0, 1);
+            check(name + ": no wait for a new key", (int) waiting.nextAvailableNanos("new"), 0);
+
+            // threads list the same keys in opposite orders, and every batch needs the global key
+            RateLimiter racing = entry.getValue().apply(10_000, 60_000L);
+            AtomicInteger grantedBatches = new AtomicInteger();
+            ExecutorService batchers = Executors.newFixedThreadPool(16);
+            for (int t = 0; t < 16; t++) {
+                List<String> keys = new ArrayList<>(List.of("user-" + t, "tenant-" + t % 4, "global"));
+                if (t % 2 == 1) Collections.reverse(keys);
+                batchers.execute(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        if (racing.tryAcquireAll(keys)) grantedBatches.incrementAndGet();
+                    }
+                });
+            }
+            batchers.shutdown();
+            check(name + ": 16 threads batching, no deadlock", batchers.awaitTermination(1, TimeUnit.MINUTES) ? 1 : 0, 1);
+            check(name + ": 16 threads batching through a global limit", grantedBatches.get(), 10_000);
+
+            // batches that an empty key denies must never take, even briefly, the shared key's
+            // last permit
+            RateLimiter shared = entry.getValue().apply(2, 60_000L);
+            allowed(shared, "empty", 2);
+            allowed(shared, "shared", 1);
+            AtomicBoolean stop = new AtomicBoolean();
+            Thread denied = new Thread(() -> {
+                while (!stop.get()) shared.tryAcquireAll(List.of("shared", "empty"));
+            });
+            denied.start();
+            int unavailable = 0;
+            long until = System.nanoTime() + 300_000_000L;
+            while (System.nanoTime() < until) {
+                if (shared.nextAvailableNanos("shared") > 0) unavailable++;
+            }
+            stop.set(true);
+            denied.join();
+            check(name + ": last permit seen taken by batches that fail", unavailable, 0);
+        }
+
+        // real clock from here: 20 a second and drained, so 10 more take about half a second
+        RateLimiterService blocking = new RateLimiterService(new TokenBucketRateLimiter(20, 1_000));
+        for (int i = 0; i < 20; i++) blocking.allow("w");
+        long waitStart = System.nanoTime();
+        for (int i = 0; i < 10; i++) blocking.acquire("w");
+        checkBetween("10 blocking acquires at 20/s, ms", (System.nanoTime() - waitStart) / 1_000_000, 450, 800);
+
+        // 200 async waiters on a drained 100-a-second key: two more windows, and no thread each
+        RateLimiterService async = new RateLimiterService(new SlidingWindowLog(100, 1_000));
+        for (int i = 0; i < 100; i++) async.allow("a");
+        int threadsBefore = Thread.activeCount();
+        waitStart = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) futures.add(async.acquireAsync("a"));
+        checkBetween("threads started for 200 async waiters", Thread.activeCount() - threadsBefore, 0, 1);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        checkBetween("200 async acquires at 100/s, ms", (System.nanoTime() - waitStart) / 1_000_000, 1_950, 2_600);
+
+        RateLimiterService slow = new RateLimiterService(new FixedWindowCounter(1, 60_000));
+        slow.allow("s");
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                slow.acquire("s");
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        waiter.start();
+        Thread.sleep(50);
+        waiter.interrupt();
+        waiter.join(1_000);
+        check("blocked acquire interrupted", interrupted.get() ? 1 : 0, 1);
+        check("Retry-After for a minute window, s", (int) slow.retryAfterSeconds("s"), 60);
+
+        // no clock movement, so exactly capacity requests may pass however many threads race
+        TokenBucketRateLimiter contended = new TokenBucketRateLimiter(10_000, 60_000, nanos::get);
+        AtomicInteger passed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int t = 0; t < 16; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    if (contended.allowRequest("hot")) passed.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        check("16 threads on one key", passed.get(), 10_000);
+
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+    }
+
+    private static int allowed(RateLimiter limiter, String key, int requests) {
+        int allowed = 0;
+        for (int i = 0; i < requests; i++) {
+            if (limiter.allowRequest(key)) allowed++;
+        }
+        return allowed;
+    }
+
+    private static void check(String name, int actual, int expected) {
+        report(name, actual == expected, actual + " (expected " + expected + ")");
+    }
+
+    private static void checkBetween(String name, long actual, long min, long max) {
+        report(name, actual >= min && actual <= max, actual + " (expected " + min + ".." + max + ")");
+    }
+
+    private static void report(String name, boolean ok, String detail) {
+        if (!ok) failures++;
+        System.out.println((ok ? "PASS " : "FAIL ") + name + ": " + detail);
+    }
+}
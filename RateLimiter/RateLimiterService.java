@@ -1,15 +1,97 @@
 // Wrapper
 package RateLimiter;
 
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
 public class RateLimiterService {
 
+    // A waiter that lost the permit it was told about re-estimates; this keeps it from spinning
+    // if the estimate comes back 0.
+    private static final long MIN_WAIT_NANOS = 100_000;
+
     private RateLimiter rateLimiter;
+    private ScheduledExecutorService timer;
 
     public RateLimiterService(RateLimiter rateLimiter) {
+        this(rateLimiter, null);
+    }
+
+    // timer retries acquireAsync waiters; its tasks only call tryAcquire, so one thread serves
+    // many. Null means a daemon timer shared by every service.
+    public RateLimiterService(RateLimiter rateLimiter, ScheduledExecutorService timer) {
         this.rateLimiter = rateLimiter;
+        this.timer = timer;
     }
 
     public boolean allow(String key) {
         return rateLimiter.allowRequest(key);
     }
-}
\ No newline at end of file
+
+    // e.g. a bulk call that costs one permit per item
+    public boolean allow(String key, int permits) {
+        return rateLimiter.tryAcquire(key, permits);
+    }
+
+    // e.g. user, tenant and global limits, all passed or none charged
+    public boolean allowAll(Collection<String> keys) {
+        return rateLimiter.tryAcquireAll(keys);
+    }
+
+    // Nanoseconds until the key would next be granted a permit, 0 if now; see retryAfterSeconds.
+    public long nextAvailableNanos(String key) {
+        return rateLimiter.nextAvailableNanos(key);
+    }
+
+    // For a Retry-After header: the wait rounded up to whole seconds, so a client that honours
+    // it is never early. 0 if a permit is there now.
+    public long retryAfterSeconds(String key) {
+        return (rateLimiter.nextAvailableNanos(key) + 999_999_999) / 1_000_000_000;
+    }
+
+    // Blocks until the key is granted a permit. Parks for the limiter's estimate between tries
+    // instead of spinning, and holds no lock while parked. Waiters are not served in order.
+    public void acquire(String key) throws InterruptedException {
+        while (!rateLimiter.allowRequest(key)) {
+            LockSupport.parkNanos(this, waitNanos(key));
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    // Completes once the key is granted a permit. Retries run on the shared timer at the
+    // limiter's estimate, so waiting holds no thread. Cancelling the future stops the retries.
+    public CompletableFuture<Void> acquireAsync(String key) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        tryComplete(key, future);
+        return future;
+    }
+
+    private void tryComplete(String key, CompletableFuture<Void> future) {
+        if (future.isDone()) return;
+        try {
+            if (rateLimiter.allowRequest(key)) {
+                // if the future was cancelled meanwhile, this permit is simply spent
+                future.complete(null);
+                return;
+            }
+            ScheduledExecutorService retries = timer != null ? timer : SharedTimer.TIMER;
+            retries.schedule(() -> tryComplete(key, future), waitNanos(key), TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private long waitNanos(String key) {
+        return Math.max(MIN_WAIT_NANOS, rateLimiter.nextAvailableNanos(key));
+    }
+
+    // created on first use, so services that never wait asynchronously start no thread
+    private static class SharedTimer {
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limiter-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
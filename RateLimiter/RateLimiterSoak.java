@@ -0,0 +1,61 @@
+package RateLimiter;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+// Sends 10,000,000 requests, each from a new key (think one per client IP), through every
+// limiter and prints the live heap and tracked keys every 1,000,000 keys. A manual clock moves
+// 1 us per request, so with a 100 ms window about 100,000 keys are recent at any time; the
+// heap should stay flat instead of growing with every key seen. The last run adds a hard cap.
+public class RateLimiterSoak {
+
+    private static final int KEYS = 10_000_000;
+    private static final long WINDOW_MILLIS = 100;
+
+    public static void main(String[] args) {
+        AtomicLong nanos = new AtomicLong();
+
+        // (maxKeys, overflowPolicy) -> limiter on the manual clock
+        Map<String, BiFunction<Integer, OverflowPolicy, RateLimiter>> limiters = new LinkedHashMap<>();
+        limiters.put("FixedWindowCounter", (max, policy) -> new FixedWindowCounter(10, WINDOW_MILLIS, max, policy, nanos::get));
+        limiters.put("SlidingWindowCounter", (max, policy) -> new SlidingWindowCounter(10, WINDOW_MILLIS, max, policy, nanos::get));
+        limiters.put("SlidingWindowLog", (max, policy) -> new SlidingWindowLog(10, WINDOW_MILLIS, max, policy, nanos::get));
+        limiters.put("TokenBucketRateLimiter", (max, policy) -> new TokenBucketRateLimiter(10, WINDOW_MILLIS, max, policy, nanos::get));
+
+        for (Map.Entry<String, BiFunction<Integer, OverflowPolicy, RateLimiter>> limiter : limiters.entrySet()) {
+            soak(limiter.getKey(), limiter.getValue().apply(Integer.MAX_VALUE, OverflowPolicy.REJECT), nanos);
+        }
+        soak("TokenBucketRateLimiter, at most 5,000 keys, EVICT",
+                limiters.get("TokenBucketRateLimiter").apply(5_000, OverflowPolicy.EVICT), nanos);
+    }
+
+    private static void soak(String name, RateLimiter limiter, AtomicLong nanos) {
+        System.out.println(name);
+        // the previous limiter is not always gone after the first round of collections
+        usedHeap();
+        long baseline = usedHeap();
+        for (int i = 1; i <= KEYS; i++) {
+            nanos.addAndGet(1_000);
+            limiter.allowRequest("ip-" + i);
+            if (i % 1_000_000 == 0) {
+                System.out.printf("  %,11d keys seen: %,8d KB live, %,7d tracked%n",
+                        i, (usedHeap() - baseline) / 1024, trackedKeys(limiter));
+            }
+        }
+    }
+
+    private static int trackedKeys(RateLimiter limiter) {
+        if (limiter instanceof FixedWindowCounter) return ((FixedWindowCounter) limiter).trackedKeys();
+        if (limiter instanceof SlidingWindowCounter) return ((SlidingWindowCounter) limiter).trackedKeys();
+        if (limiter instanceof SlidingWindowLog) return ((SlidingWindowLog) limiter).trackedKeys();
+        return ((TokenBucketRateLimiter) limiter).trackedKeys();
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 2; i++) memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -1,36 +1,151 @@
 package RateLimiter;
 
 import java.util.*;
+import java.util.function.*;
 
+// Approximates a sliding window from two fixed windows: the previous window's count, weighted
+// by how much of it still overlaps the sliding window, plus the current window's count.
+// Per-key state is two counts and a window start, whatever the limit. SlidingWindowLog is
+// the exact variant.
 public class SlidingWindowCounter implements RateLimiter {
 
     private int maxRequests;
-    private long windowSizeInMillis;
+    private long windowSizeInNanos;
+    private LongSupplier nanoTime;
 
-    private Map<String, Queue<Long>> requestTimestamps = new HashMap<>();
+    private KeyStates<Window> windows;
 
     public SlidingWindowCounter(int maxRequests, long windowSizeInMillis) {
+        this(maxRequests, windowSizeInMillis, Integer.MAX_VALUE, OverflowPolicy.REJECT, System::nanoTime);
+    }
+
+    public SlidingWindowCounter(int maxRequests, long windowSizeInMillis, LongSupplier nanoTime) {
+        this(maxRequests, windowSizeInMillis, Integer.MAX_VALUE, OverflowPolicy.REJECT, nanoTime);
+    }
+
+    public SlidingWindowCounter(int maxRequests, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy) {
+        this(maxRequests, windowSizeInMillis, maxKeys, overflowPolicy, System::nanoTime);
+    }
+
+    public SlidingWindowCounter(int maxRequests, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy,
+                                LongSupplier nanoTime) {
+        if (maxRequests <= 0 || windowSizeInMillis <= 0) {
+            throw new IllegalArgumentException("maxRequests and window must be positive");
+        }
         this.maxRequests = maxRequests;
-        this.windowSizeInMillis = windowSizeInMillis;
+        this.windowSizeInNanos = windowSizeInMillis * 1_000_000;
+        this.nanoTime = nanoTime;
+        this.windows = new KeyStates<>(maxKeys, overflowPolicy, windowSizeInNanos, nanoTime.getAsLong(),
+                Window::new, this::retire);
     }
 
     @Override
-    public synchronized boolean allowRequest(String key) {
-        long currentTime = System.currentTimeMillis();
+    public boolean tryAcquire(String key, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        long currentTime = nanoTime.getAsLong();
 
-        requestTimestamps.putIfAbsent(key, new LinkedList<>());
-        Queue<Long> queue = requestTimestamps.get(key);
+        while (true) {
+            Window window = windows.getOrCreate(key, currentTime);
+            if (window == null) return windows.allowsUntracked();
 
-        // remove old requests
-        while (!queue.isEmpty() && currentTime - queue.peek() > windowSizeInMillis) {
-            queue.poll();
+            // one lock per key, so different keys never wait for each other
+            synchronized (window) {
+                int result = acquire(window, permits, currentTime, true);
+                if (result != KeyStates.RETIRED) return result == KeyStates.GRANTED;
+            }
+            windows.removeRetired(key, window);
         }
+    }
+
+    @Override
+    public boolean tryAcquireAll(Collection<String> keys) {
+        return windows.acquireAll(keys, nanoTime.getAsLong(), this::acquire);
+    }
 
-        if (queue.size() < maxRequests) {
-            queue.offer(currentTime);
+    @Override
+    public long nextAvailableNanos(String key) {
+        long currentTime = nanoTime.getAsLong();
+        Window window = windows.get(key);
+        if (window == null) return windows.untilRoom(currentTime);
+
+        synchronized (window) {
+            if (window.retired) return windows.untilRoom(currentTime);
+            long elapsed = roll(window, currentTime);
+            long wait = 0;
+            int previous = window.previous;
+            int current = window.current;
+            if (current >= maxRequests) {
+                // the current window is full: wait for the next one, where it is the previous
+                wait = window.start + windowSizeInNanos - currentTime;
+                elapsed = 0;
+                previous = current;
+                current = 0;
+            }
+            if (previous == 0) return wait;
+            // the weighted count drops below the limit once
+            // elapsed > window - (maxRequests - current) * window / previous
+            double threshold = windowSizeInNanos - (double) (maxRequests - current) * windowSizeInNanos / previous;
+            return wait + Math.max(0, (long) Math.floor(threshold) + 1 - elapsed);
+        }
+    }
+
+    @Override
+    public void cleanUp() {
+        windows.cleanUp(nanoTime.getAsLong());
+    }
+
+    public int trackedKeys() {
+        return windows.size();
+    }
+
+    // Called with the window's lock held.
+    private int acquire(Window window, int permits, long currentTime, boolean take) {
+        if (window.retired) return KeyStates.RETIRED;
+        long elapsed = roll(window, currentTime);
+
+        // the last permit must pass previous * (remaining overlap / window) + current < maxRequests,
+        // compared without dividing
+        double weighted = (double) window.previous * (windowSizeInNanos - elapsed)
+                + ((double) window.current + permits - 1) * windowSizeInNanos;
+        if (weighted >= (double) maxRequests * windowSizeInNanos) return KeyStates.DENIED;
+        if (take) window.current += permits;
+        return KeyStates.GRANTED;
+    }
+
+    // Moves the window up to the current time; returns how far into the current window it is.
+    // Called with the window's lock held.
+    private long roll(Window window, long currentTime) {
+        long elapsed = currentTime - window.start;
+        if (elapsed >= windowSizeInNanos) {
+            long passed = elapsed / windowSizeInNanos;
+            // the old current window is the new previous one, unless a whole window was skipped
+            window.previous = passed == 1 ? window.current : 0;
+            window.current = 0;
+            window.start += passed * windowSizeInNanos;
+            elapsed -= passed * windowSizeInNanos;
+        }
+        return elapsed;
+    }
+
+    // idle once two windows have passed since its start, when both counts have stopped mattering
+    private boolean retire(Window window, long now, boolean force) {
+        synchronized (window) {
+            if (!force && !window.retired && now - window.start < 2 * windowSizeInNanos) return false;
+            window.retired = true;
             return true;
         }
+    }
+
+    private static class Window {
+        private long start;
+        private int previous;
+        private int current;
+        private boolean retired;
 
-        return false;
+        Window(long start) {
+            this.start = start;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package RateLimiter;
+
+import java.util.*;
+import java.util.function.*;
+
+// Exact sliding window: keeps the time of every accepted request in the last window and
+// allows a request while fewer than maxRequests remain. The times live in a primitive
+// long[] ring per key, so memory is 8 bytes per remembered request. The ring starts small
+// and doubles up to maxRequests.
+public class SlidingWindowLog implements RateLimiter {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int maxRequests;
+    private long windowSizeInNanos;
+    private LongSupplier nanoTime;
+
+    private KeyStates<Log> logs;
+
+    public SlidingWindowLog(int maxRequests, long windowSizeInMillis) {
+        this(maxRequests, windowSizeInMillis, Integer.MAX_VALUE, OverflowPolicy.REJECT, System::nanoTime);
+    }
+
+    public SlidingWindowLog(int maxRequests, long windowSizeInMillis, LongSupplier nanoTime) {
+        this(maxRequests, windowSizeInMillis, Integer.MAX_VALUE, OverflowPolicy.REJECT, nanoTime);
+    }
+
+    public SlidingWindowLog(int maxRequests, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy) {
+        this(maxRequests, windowSizeInMillis, maxKeys, overflowPolicy, System::nanoTime);
+    }
+
+    public SlidingWindowLog(int maxRequests, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy,
+                            LongSupplier nanoTime) {
+        if (maxRequests <= 0 || windowSizeInMillis <= 0) {
+            throw new IllegalArgumentException("maxRequests and window must be positive");
+        }
+        this.maxRequests = maxRequests;
+        this.windowSizeInNanos = windowSizeInMillis * 1_000_000;
+        this.nanoTime = nanoTime;
+        this.logs = new KeyStates<>(maxKeys, overflowPolicy, windowSizeInNanos, nanoTime.getAsLong(),
+                now -> new Log(Math.min(INITIAL_CAPACITY, maxRequests)), this::retire);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        long currentTime = nanoTime.getAsLong();
+
+        while (true) {
+            Log log = logs.getOrCreate(key, currentTime);
+            if (log == null) return logs.allowsUntracked();
+
+            synchronized (log) {
+                int result = acquire(log, permits, currentTime, true);
+                if (result != KeyStates.RETIRED) return result == KeyStates.GRANTED;
+            }
+            logs.removeRetired(key, log);
+        }
+    }
+
+    @Override
+    public boolean tryAcquireAll(Collection<String> keys) {
+        return logs.acquireAll(keys, nanoTime.getAsLong(), this::acquire);
+    }
+
+    @Override
+    public long nextAvailableNanos(String key) {
+        long currentTime = nanoTime.getAsLong();
+        Log log = logs.get(key);
+        if (log == null) return logs.untilRoom(currentTime);
+
+        synchronized (log) {
+            if (log.retired) return logs.untilRoom(currentTime);
+            log.expire(currentTime, windowSizeInNanos);
+            if (log.size < maxRequests) return 0;
+            // the log is full, so a slot frees when the oldest request expires, 1 ns past the window
+            return log.times[log.head] + windowSizeInNanos + 1 - currentTime;
+        }
+    }
+
+    @Override
+    public void cleanUp() {
+        logs.cleanUp(nanoTime.getAsLong());
+    }
+
+    public int trackedKeys() {
+        return logs.size();
+    }
+
+    // Called with the log's lock held. Each permit is remembered as one request.
+    private int acquire(Log log, int permits, long currentTime, boolean take) {
+        if (log.retired) return KeyStates.RETIRED;
+        log.expire(currentTime, windowSizeInNanos);
+
+        if (permits > maxRequests - log.size) return KeyStates.DENIED;
+        if (take) {
+            while (log.times.length < log.size + permits) log.grow(maxRequests);
+            for (int i = 0; i < permits; i++) {
+                log.times[(log.head + log.size) % log.times.length] = currentTime;
+                log.size++;
+            }
+        }
+        return KeyStates.GRANTED;
+    }
+
+    // idle once every remembered request has left the window
+    private boolean retire(Log log, long now, boolean force) {
+        synchronized (log) {
+            log.expire(now, windowSizeInNanos);
+            if (!force && !log.retired && log.size > 0) return false;
+            log.retired = true;
+            return true;
+        }
+    }
+
+    private static class Log {
+        private long[] times;
+        private int head;
+        private int size;
+        private boolean retired;
+
+        Log(int capacity) {
+            this.times = new long[capacity];
+        }
+
+        // remove old requests
+        void expire(long now, long windowSizeInNanos) {
+            while (size > 0 && now - times[head] > windowSizeInNanos) {
+                head = (head + 1) % times.length;
+                size--;
+            }
+        }
+
+        // Copies the ring oldest first into a bigger array.
+        void grow(int maxCapacity) {
+            long[] bigger = new long[(int) Math.min(maxCapacity, 2L * times.length)];
+            for (int i = 0; i < size; i++) {
+                bigger[i] = times[(head + i) % times.length];
+            }
+            times = bigger;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package RateLimiter;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+// Each key has a bucket of up to capacity tokens, refilled evenly at capacity per window.
+// A request takes one token per permit. Tokens and the last refill time share one AtomicLong
+// per key, so tryAcquire is a CAS loop: no lock, and no allocation once the key has a bucket.
+public class TokenBucketRateLimiter implements RateLimiter {
+
+    // state layout: [44 bits last refill, microseconds since start][20 bits tokens]
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long TIME_MASK = (1L << (64 - TOKEN_BITS)) - 1;
+    // all tokens bits set never occurs in a live bucket, so -1 can mark a swept one
+    private static final long RETIRED = -1L;
+    public static final int MAX_CAPACITY = (int) TOKEN_MASK - 1;
+    // stands in for a key over the cap that was let through
+    private static final AtomicLong UNTRACKED = new AtomicLong(RETIRED);
+
+    private int capacity;
+    private long windowMicros;
+    private LongSupplier nanoTime;
+    private long startNanos;
+
+    private KeyStates<AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(int capacity, long windowSizeInMillis) {
+        this(capacity, windowSizeInMillis, Integer.MAX_VALUE, OverflowPolicy.REJECT, System::nanoTime);
+    }
+
+    public TokenBucketRateLimiter(int capacity, long windowSizeInMillis, LongSupplier nanoTime) {
+        this(capacity, windowSizeInMillis, Integer.MAX_VALUE, OverflowPolicy.REJECT, nanoTime);
+    }
+
+    public TokenBucketRateLimiter(int capacity, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy) {
+        this(capacity, windowSizeInMillis, maxKeys, overflowPolicy, System::nanoTime);
+    }
+
+    public TokenBucketRateLimiter(int capacity, long windowSizeInMillis, int maxKeys, OverflowPolicy overflowPolicy,
+                                  LongSupplier nanoTime) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY || windowSizeInMillis <= 0) {
+            throw new IllegalArgumentException("capacity must be 1.." + MAX_CAPACITY + " and window positive");
+        }
+        this.capacity = capacity;
+        this.windowMicros = windowSizeInMillis * 1_000;
+        this.nanoTime = nanoTime;
+        this.startNanos = nanoTime.getAsLong();
+        this.buckets = new KeyStates<>(maxKeys, overflowPolicy, windowMicros, 0, this::newBucket, this::retire);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        return take(key, permits, nowMicros()) != null;
+    }
+
+    // Two passes: check that every bucket has its permits, then take them with a CAS against
+    // the state that was checked. A denied batch touches nothing. If another request changes
+    // a bucket between the passes, what this batch took so far goes back and it starts over,
+    // so only a batch that loses a race holds tokens it then returns.
+    @Override
+    public boolean tryAcquireAll(Collection<String> keys) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String key : keys) counts.merge(key, 1, Integer::sum);
+        String[] names = counts.keySet().toArray(new String[0]);
+        int[] permits = new int[names.length];
+        for (int i = 0; i < names.length; i++) permits[i] = counts.get(names[i]);
+
+        long now = nowMicros();
+        // null for a key let through untracked
+        AtomicLong[] checked = new AtomicLong[names.length];
+        long[] states = new long[names.length];
+        attempt:
+        while (true) {
+            for (int i = 0; i < names.length; i++) {
+                AtomicLong bucket = buckets.getOrCreate(names[i], now);
+                if (bucket == null && !buckets.allowsUntracked()) return false;
+                checked[i] = bucket;
+                if (bucket == null) continue;
+
+                states[i] = bucket.get();
+                if (states[i] == RETIRED) {
+                    buckets.removeRetired(names[i], bucket);
+                    continue attempt;
+                }
+                if ((refill(states[i], now) & TOKEN_MASK) < permits[i]) return false;
+            }
+
+            for (int i = 0; i < names.length; i++) {
+                if (checked[i] == null) continue;
+                if (!checked[i].compareAndSet(states[i], refill(states[i], now) - permits[i])) {
+                    for (int j = 0; j < i; j++) {
+                        if (checked[j] != null) refund(checked[j], permits[j], now);
+                    }
+                    continue attempt;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public long nextAvailableNanos(String key) {
+        long nanos = nanoTime.getAsLong() - startNanos;
+        long now = nanos / 1_000;
+        AtomicLong bucket = buckets.get(key);
+        long state = bucket == null ? RETIRED : bucket.get();
+        if (state == RETIRED) return buckets.untilRoom(now) * 1_000;
+
+        long refilled = refill(state, now);
+        if ((refilled & TOKEN_MASK) > 0) return 0;
+        // empty: the next token is earned window / capacity after the refill time, rounded up
+        // as in refill
+        long elapsed = ((now - (refilled >>> TOKEN_BITS)) << TOKEN_BITS) >> TOKEN_BITS;
+        long perToken = (windowMicros + capacity - 1) / capacity;
+        long waitMicros = perToken - Math.max(0, elapsed);
+        // less the part of the current microsecond already gone
+        return waitMicros <= 0 ? 0 : waitMicros * 1_000 - nanos % 1_000;
+    }
+
+    @Override
+    public void cleanUp() {
+        buckets.cleanUp(nowMicros());
+    }
+
+    public int trackedKeys() {
+        return buckets.size();
+    }
+
+    // The bucket the permits came from, UNTRACKED for a key let through over the cap, or
+    // null if the permits are not there.
+    private AtomicLong take(String key, int permits, long now) {
+        while (true) {
+            AtomicLong bucket = buckets.getOrCreate(key, now);
+            if (bucket == null) return buckets.allowsUntracked() ? UNTRACKED : null;
+
+            long state;
+            while ((state = bucket.get()) != RETIRED) {
+                long refilled = refill(state, now);
+                if ((refilled & TOKEN_MASK) < permits) {
+                    // not enough; write back only if the refill moved the clock
+                    if (refilled == state || bucket.compareAndSet(state, refilled)) return null;
+                } else if (bucket.compareAndSet(state, refilled - permits)) {
+                    return bucket;
+                }
+            }
+            // swept while we held it; look the key up again
+            buckets.removeRetired(key, bucket);
+        }
+    }
+
+    // Puts back tokens taken by a batch that lost a race, up to capacity. A bucket swept
+    // since is full anyway.
+    private void refund(AtomicLong bucket, int permits, long now) {
+        long state;
+        while ((state = bucket.get()) != RETIRED) {
+            long refilled = refill(state, now);
+            long tokens = Math.min(capacity, (refilled & TOKEN_MASK) + permits);
+            if (bucket.compareAndSet(state, (refilled & ~TOKEN_MASK) | tokens)) return;
+        }
+    }
+
+    private AtomicLong newBucket(long now) {
+        return new AtomicLong(pack(now, capacity));
+    }
+
+    // idle once refilled to capacity, when a new bucket would be no different
+    private boolean retire(AtomicLong bucket, long now, boolean force) {
+        while (true) {
+            long state = bucket.get();
+            if (state == RETIRED) return true;
+            if (!force && (refill(state, now) & TOKEN_MASK) != capacity) return false;
+            if (bucket.compareAndSet(state, RETIRED)) return true;
+        }
+    }
+
+    // Adds the whole tokens earned since the last refill. The refill time only moves by
+    // the time those tokens cost, so the fraction of a token carries over.
+    private long refill(long state, long now) {
+        long tokens = state & TOKEN_MASK;
+        long last = state >>> TOKEN_BITS;
+        // 44-bit signed difference, so it stays right when the clock wraps (~200 days)
+        long elapsed = ((now - last) << TOKEN_BITS) >> TOKEN_BITS;
+        // another thread read the clock later and already stamped the bucket
+        if (elapsed < 0) elapsed = 0;
+        // a full bucket earns nothing, so it is stamped now rather than carrying old credit
+        if (tokens == capacity || elapsed >= windowMicros) return pack(now, capacity);
+
+        long earned = elapsed * capacity / windowMicros;
+        if (earned == 0) return state;
+        if (tokens + earned >= capacity) return pack(now, capacity);
+        // rounded up, so a bucket never gets ahead of the rate
+        long spent = (earned * windowMicros + capacity - 1) / capacity;
+        return pack(last + spent, tokens + earned);
+    }
+
+    private long nowMicros() {
+        return (nanoTime.getAsLong() - startNanos) / 1_000;
+    }
+
+    private static long pack(long micros, long tokens) {
+        return (micros & TIME_MASK) << TOKEN_BITS | tokens;
+    }
+}